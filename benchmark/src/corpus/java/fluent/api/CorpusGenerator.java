@@ -0,0 +1,360 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fluent.api.CorpusGenerator.Statement.PLAIN;
+import static fluent.api.CorpusGenerator.Statement.REFERENCE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Generator of synthetic, but compilable source code corpus using fluent DSL, for benchmarks and scaling tests.
+ *
+ * Corpus consists of DSL types (package corpus.dsl) and of classes using them (package corpus). Generated code is fully
+ * deterministic, so the same parameters always produce the same corpus.
+ */
+public final class CorpusGenerator {
+
+    /**
+     * Kinds of generated statements. Statements of a corpus class cycle through the selected kinds.
+     */
+    public enum Statement {
+        /** Chain of methods of a DSL type hierarchy ending with the @End method. */
+        CHAIN,
+        /** Sentence starting with @Start method and passing several interfaces before reaching the @End method. */
+        START,
+        /** Chain inside of nested void lambda expressions. */
+        LAMBDA,
+        /** Method reference to the @End method. */
+        REFERENCE,
+        /** Statement not using any DSL. */
+        PLAIN
+    }
+
+    private static final int STATEMENTS_PER_METHOD = 50;
+
+    private int files = 1;
+    private int statementsPerFile = 100;
+    private int chainLength = 5;
+    private int lambdaDepth = 1;
+    private int supertypeDepth = 1;
+    private int typeArguments = 1;
+    private int endTypes = 1;
+    private int startTypes = 1;
+    private int missingEndEvery = 0;
+    private List<Statement> statements = asList(Statement.values());
+
+    public CorpusGenerator files(int files) {
+        this.files = files;
+        return this;
+    }
+
+    public CorpusGenerator statementsPerFile(int statementsPerFile) {
+        this.statementsPerFile = statementsPerFile;
+        return this;
+    }
+
+    public CorpusGenerator chainLength(int chainLength) {
+        this.chainLength = chainLength;
+        return this;
+    }
+
+    public CorpusGenerator lambdaDepth(int lambdaDepth) {
+        this.lambdaDepth = Math.max(1, lambdaDepth);
+        return this;
+    }
+
+    public CorpusGenerator supertypeDepth(int supertypeDepth) {
+        this.supertypeDepth = Math.max(1, supertypeDepth);
+        return this;
+    }
+
+    /**
+     * Number of type arguments of generated end DSL hierarchy levels. Every level swaps two of the type arguments of
+     * it's direct supertype, so the hierarchy contains several parameterizations of the same generic types.
+     * @param typeArguments Number of type arguments (at least 1).
+     * @return This generator.
+     */
+    public CorpusGenerator typeArguments(int typeArguments) {
+        this.typeArguments = Math.max(1, typeArguments);
+        return this;
+    }
+
+    public CorpusGenerator endTypes(int endTypes) {
+        this.endTypes = Math.max(1, endTypes);
+        return this;
+    }
+
+    public CorpusGenerator startTypes(int startTypes) {
+        this.startTypes = Math.max(1, startTypes);
+        return this;
+    }
+
+    /**
+     * Omit the end method in every n-th statement, which supports it, so the corpus contains known number of errors.
+     * @param missingEndEvery Period of statements with missing end method. Zero means no missing end methods.
+     * @return This generator.
+     */
+    public CorpusGenerator missingEndEvery(int missingEndEvery) {
+        this.missingEndEvery = missingEndEvery;
+        return this;
+    }
+
+    public CorpusGenerator statements(Statement... statements) {
+        this.statements = asList(statements);
+        return this;
+    }
+
+    /**
+     * @return Total number of top level statements in all generated corpus classes.
+     */
+    public int statementCount() {
+        return files * statementsPerFile;
+    }
+
+    /**
+     * @return Total number of statements with missing end method, that the check is expected to report.
+     */
+    public int violations() {
+        int violations = 0;
+        for(int statement = 0; statement < statementsPerFile; statement++) {
+            if(isMissingEnd(statement)) {
+                violations++;
+            }
+        }
+        return files * violations;
+    }
+
+    /**
+     * @return All generated source files - DSL types, as well as the classes using them.
+     */
+    public List<JavaFileObject> generate() {
+        List<JavaFileObject> sources = dsl();
+        sources.addAll(corpus());
+        return sources;
+    }
+
+    /**
+     * @return Generated DSL types only.
+     */
+    public List<JavaFileObject> dsl() {
+        List<JavaFileObject> sources = new ArrayList<>();
+        for(int type = 0; type < endTypes; type++) {
+            for(int level = 0; level < supertypeDepth; level++) {
+                sources.add(source("corpus/dsl/EndDsl" + type + "Level" + level, endDslLevel(type, level)));
+            }
+            sources.add(source("corpus/dsl/EndDsl" + type, endDsl(type)));
+        }
+        for(int type = 0; type < startTypes; type++) {
+            sources.add(source("corpus/dsl/StartDsl" + type, startDsl(type)));
+        }
+        return sources;
+    }
+
+    /**
+     * @return Generated classes using the DSL types.
+     */
+    public List<JavaFileObject> corpus() {
+        List<JavaFileObject> sources = new ArrayList<>();
+        for(int file = 0; file < files; file++) {
+            sources.add(source("corpus/Corpus" + file, corpusClass(file)));
+        }
+        return sources;
+    }
+
+    /**
+     * Write all generated source files into a directory.
+     * @param directory Root directory of the generated sources.
+     * @throws IOException in case of failure to write the files.
+     */
+    public void writeTo(Path directory) throws IOException {
+        for(JavaFileObject source : generate()) {
+            Path file = directory.resolve(source.toUri().getPath().substring(1));
+            Files.createDirectories(file.getParent());
+            Files.write(file, source.getCharContent(true).toString().getBytes(UTF_8));
+        }
+    }
+
+    private String endDslLevel(int type, int level) {
+        StringBuilder code = new StringBuilder("package corpus.dsl;\n\nimport fluent.api.End;\n\n");
+        code.append("public interface EndDsl").append(type).append("Level").append(level).append(typeParameters(false));
+        if(level > 0) {
+            code.append(" extends EndDsl").append(type).append("Level").append(level - 1).append(typeParameters(true));
+        }
+        if(level > 1) {
+            code.append(", EndDsl").append(type).append("Level").append(level - 2).append(typeParameters(false));
+        }
+        code.append(" {\n\n    T level").append(level).append("(int value);\n");
+        if(level == 0) {
+            code.append("\n    @End\n    void end();\n");
+        }
+        return code.append("\n}\n").toString();
+    }
+
+    private String typeParameters(boolean swapped) {
+        StringBuilder parameters = new StringBuilder("<T");
+        for(int argument = 1; argument < typeArguments; argument++) {
+            int parameter = swapped && typeArguments > 2 && argument < 3 ? 3 - argument : argument;
+            parameters.append(", A").append(parameter);
+        }
+        return parameters.append('>').toString();
+    }
+
+    private String endDsl(int type) {
+        StringBuilder arguments = new StringBuilder("<EndDsl" + type);
+        for(int argument = 1; argument < typeArguments; argument++) {
+            arguments.append(", String");
+        }
+        return "package corpus.dsl;\n\n" +
+                "public interface EndDsl" + type + " extends EndDsl" + type + "Level" + (supertypeDepth - 1) + arguments + "> {\n\n" +
+                "    static EndDsl" + type + " endDsl" + type + "() {\n" +
+                "        return null;\n" +
+                "    }\n\n" +
+                "}\n";
+    }
+
+    private String startDsl(int type) {
+        return "package corpus.dsl;\n\n" +
+                "import fluent.api.End;\n" +
+                "import fluent.api.Start;\n\n" +
+                "public interface StartDsl" + type + " {\n\n" +
+                "    @Start(\"Sentence " + type + " must be completed.\")\n" +
+                "    static StartDsl" + type + " startDsl" + type + "() {\n" +
+                "        return null;\n" +
+                "    }\n\n" +
+                "    Step first(int value);\n\n" +
+                "    interface Step {\n" +
+                "        Last second(int value);\n" +
+                "    }\n\n" +
+                "    interface Last {\n" +
+                "        @End\n" +
+                "        void done();\n" +
+                "    }\n\n" +
+                "}\n";
+    }
+
+    private String corpusClass(int file) {
+        StringBuilder code = new StringBuilder("package corpus;\n\n");
+        code.append("import corpus.dsl.*;\n\n");
+        code.append("import java.util.ArrayList;\n");
+        code.append("import java.util.List;\n");
+        code.append("import java.util.function.Consumer;\n\n");
+        code.append("public class Corpus").append(file).append(" {\n\n");
+        code.append("    private final List<Integer> list = new ArrayList<>();\n");
+        code.append("    private int counter;\n\n");
+        code.append("    private static <T> void with(T value, Consumer<T> consumer) {\n");
+        code.append("        consumer.accept(value);\n");
+        code.append("    }\n");
+        for(int statement = 0; statement < statementsPerFile; statement++) {
+            if(statement % STATEMENTS_PER_METHOD == 0) {
+                if(statement > 0) {
+                    code.append("    }\n");
+                }
+                code.append("\n    public void method").append(statement / STATEMENTS_PER_METHOD).append("() {\n");
+            }
+            code.append("        ").append(statement(statement)).append('\n');
+        }
+        if(statementsPerFile > 0) {
+            code.append("    }\n");
+        }
+        return code.append("\n}\n").toString();
+    }
+
+    private boolean isMissingEnd(int statement) {
+        return missingEndEvery > 0 && (statement + 1) % missingEndEvery == 0 && kind(statement) != REFERENCE && kind(statement) != PLAIN;
+    }
+
+    private Statement kind(int statement) {
+        return statements.get(statement % statements.size());
+    }
+
+    private String statement(int statement) {
+        int type = statement % endTypes;
+        String end = isMissingEnd(statement) ? "" : ".end()";
+        switch (kind(statement)) {
+            case CHAIN:
+                return "EndDsl" + type + ".endDsl" + type + "()" + chain(statement) + end + ";";
+            case START:
+                int start = statement % startTypes;
+                return "StartDsl" + start + ".startDsl" + start + "().first(" + statement + ").second(" + statement + ")" + (isMissingEnd(statement) ? "" : ".done()") + ";";
+            case LAMBDA:
+                String expression = "d" + lambdaDepth + chain(statement) + end;
+                for(int depth = lambdaDepth; depth > 0; depth--) {
+                    String value = depth == 1 ? "EndDsl" + type + ".endDsl" + type + "()" : "d" + (depth - 1) + ".level0(" + depth + ")";
+                    expression = "with(" + value + ", d" + depth + " -> " + expression + ")";
+                }
+                return expression + ";";
+            case REFERENCE:
+                return "with(EndDsl" + type + ".endDsl" + type + "().level0(" + statement + "), EndDsl" + type + "::end);";
+            default:
+                switch (statement % 4) {
+                    case 0: return "counter += " + statement + ";";
+                    case 1: return "list.add(counter);";
+                    case 2: return "Integer.toString(counter).trim();";
+                    default: return "list.removeIf(value -> value > " + statement + ");";
+                }
+        }
+    }
+
+    private String chain(int statement) {
+        StringBuilder chain = new StringBuilder();
+        for(int link = 0; link < chainLength; link++) {
+            chain.append(".level").append((statement + link) % supertypeDepth).append('(').append(link).append(')');
+        }
+        return chain.toString();
+    }
+
+    private static JavaFileObject source(String name, String content) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return files + " files with " + statementsPerFile + " " + statements.stream().map(Statement::name).collect(joining(", ")).toLowerCase() + " statements, chain length " + chainLength +
+                ", lambda depth " + lambdaDepth + ", supertype depth " + supertypeDepth + ", " + typeArguments + " type arguments, " + endTypes + " end types, " +
+                startTypes + " start types" + (missingEndEvery > 0 ? ", end missing in every " + missingEndEvery + ". statement" : "");
+    }
+
+}
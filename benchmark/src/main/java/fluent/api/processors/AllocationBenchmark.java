@@ -0,0 +1,90 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Benchmark of memory allocated by the end method check of statements, which pass the check, once the scanner is warm
+ * (end methods of all types used in the corpus are already resolved, as after the first statements of a compilation).
+ *
+ * It's meant to be run with the GC profiler, which reports bytes allocated per pass over the corpus
+ * (gc.alloc.rate.norm). The main method runs it so, and converts the result to bytes allocated per statement:
+ * <pre>
+ * java -cp target/benchmarks.jar fluent.api.processors.AllocationBenchmark
+ * </pre>
+ *
+ * Passing statements don't get to zero: about 25 - 30 bytes remain per visited tree node, which are the TreePath and
+ * list iterators created by javac's TreePathScanner. Trees resolve symbols and types only from a TreePath, so the
+ * check can't avoid them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+    private DslScanner scanner;
+
+    @Setup
+    public void warmUpScanner(AttributedCorpus corpus) {
+        scanner = corpus.scanner();
+        corpus.scan(scanner);
+    }
+
+    @Benchmark
+    public void warmScan(AttributedCorpus corpus, ScannerBenchmark.Counters counters) {
+        corpus.scan(scanner);
+        counters.statements += corpus.statements;
+        counters.units += corpus.units.size();
+    }
+
+    public static void main(String... args) throws RunnerException {
+        for(RunResult run : new Runner(new OptionsBuilder().include(AllocationBenchmark.class.getName()).addProfiler(GCProfiler.class).build()).run()) {
+            Map<String, Result> secondary = run.getSecondaryResults();
+            double bytesPerScan = secondary.entrySet().stream().filter(entry -> entry.getKey().endsWith("gc.alloc.rate.norm")).findFirst().map(entry -> entry.getValue().getScore()).orElse(Double.NaN);
+            double statementsPerScan = run.getPrimaryResult().getScore() / secondary.get("statements").getScore();
+            System.out.printf("%s: warm scan of passing statements allocated %.1f bytes per statement%n", run.getParams().getParam("corpus"), bytesPerScan / statementsPerScan);
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import fluent.api.CorpusGenerator;
+import fluent.api.CorpusGenerator.Statement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.*;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static fluent.api.CorpusGenerator.Statement.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toSet;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+/**
+ * Benchmark state holding compilation units of selected generated corpus, already parsed and attributed by javac, so
+ * the benchmarks measure only the end method check itself.
+ */
+@State(Scope.Benchmark)
+public class AttributedCorpus {
+
+    public enum Corpus {
+        CHAINS(() -> new CorpusGenerator().statements(CHAIN, START).chainLength(20).supertypeDepth(5).endTypes(5)),
+        HIERARCHY(() -> new CorpusGenerator().statements(CHAIN, START).chainLength(20).supertypeDepth(12).typeArguments(4).endTypes(5)),
+        LAMBDAS(() -> new CorpusGenerator().statements(LAMBDA, REFERENCE).lambdaDepth(3).endTypes(5)),
+        PLAIN(() -> new CorpusGenerator().statements(Statement.PLAIN));
+
+        private final Supplier<CorpusGenerator> generator;
+
+        Corpus(Supplier<CorpusGenerator> generator) {
+            this.generator = generator;
+        }
+    }
+
+    @Param
+    public Corpus corpus;
+
+    @Param("10")
+    public int files;
+
+    @Param("500")
+    public int statementsPerFile;
+
+    @Param("false")
+    public boolean prefilter;
+
+    final List<CompilationUnitTree> units = new ArrayList<>();
+    private final List<TaskEvent> events = new ArrayList<>();
+    private final List<TypeElement> sourceTypes = new ArrayList<>();
+    final List<TypeElement> dslTypes = new ArrayList<>();
+    long statements;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    private Trees trees;
+    private Types types;
+    private Elements elements;
+
+    @Setup
+    public void compile() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, UTF_8);
+        List<String> options = asList("-proc:none", "-classpath", System.getProperty("java.class.path"));
+        CorpusGenerator generator = corpus.generator.get().files(files).statementsPerFile(statementsPerFile);
+        List<JavaFileObject> sources = generator.dsl();
+        List<JavaFileObject> corpusSources = generator.corpus();
+        sources.addAll(corpusSources);
+        Set<URI> corpusUnits = corpusSources.stream().map(JavaFileObject::toUri).collect(toSet());
+        JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        List<CompilationUnitTree> allUnits = new ArrayList<>();
+        for(CompilationUnitTree unit : task.parse()) {
+            allUnits.add(unit);
+            if(corpusUnits.contains(unit.getSourceFile().toUri())) {
+                units.add(unit);
+            }
+        }
+        task.analyze();
+        trees = Trees.instance(task);
+        types = task.getTypes();
+        elements = task.getElements();
+        units.forEach(unit -> statements += countStatements(unit));
+        for(CompilationUnitTree unit : allUnits) {
+            for(Tree declaration : unit.getTypeDecls()) {
+                TypeElement type = (TypeElement) trees.getElement(new TreePath(new TreePath(unit), declaration));
+                sourceTypes.add(type);
+                if(units.contains(unit)) {
+                    events.add(new TaskEvent(ANALYZE, unit, type));
+                } else {
+                    dslTypes.add(type);
+                }
+            }
+        }
+        Statistics statistics = new Statistics();
+        scan(scanner(statistics));
+        long nodes = units.stream().mapToLong(AttributedCorpus::countNodes).sum();
+        System.out.println("One pass over corpus " + corpus + " visited " + statistics.nodes + " of " + nodes + " tree nodes, skipped " + statistics.filteredUnits + " of " + units.size() + " compilation units.");
+        if(diagnostics.getDiagnostics().stream().anyMatch(diagnostic -> diagnostic.getKind() == ERROR)) {
+            throw new IllegalStateException("Benchmark corpus " + corpus + " is expected to pass the check: " + diagnostics.getDiagnostics());
+        }
+    }
+
+    DslScanner scanner() {
+        return scanner(new Statistics());
+    }
+
+    private DslScanner scanner(Statistics statistics) {
+        Map<String, Set<String>> externalEndMethods = new ConcurrentHashMap<>();
+        Function<AnnotationUtils, NameFilter> nameFilterFactory = prefilter ? utils -> NameFilter.of(sourceTypes, externalEndMethods, utils, trees) : null;
+        return new DslScanner(() -> new AnnotationUtils(externalEndMethods, new ConcurrentHashMap<>(), emptyList(), null, types, elements, statistics), nameFilterFactory, null, null, trees, types, elements, statistics, 0);
+    }
+
+    AnnotationUtils annotationUtils() {
+        return new AnnotationUtils(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), emptyList(), null, types, elements, new Statistics());
+    }
+
+    List<TypeElement> platformTypes(String... names) {
+        List<TypeElement> platformTypes = new ArrayList<>();
+        for(String name : names) {
+            platformTypes.add(elements.getTypeElement(name));
+        }
+        return platformTypes;
+    }
+
+    /**
+     * @return Elements of all methods invoked in the corpus, in order of the invocations (so repeated as in the code).
+     */
+    List<Element> invokedMethods() {
+        List<Element> methods = new ArrayList<>();
+        for(CompilationUnitTree unit : units) {
+            new TreePathScanner<Void, Void>() {
+                @Override
+                public Void visitMethodInvocation(MethodInvocationTree node, Void aVoid) {
+                    Element method = trees.getElement(new TreePath(getCurrentPath(), node.getMethodSelect()));
+                    if(method != null) {
+                        methods.add(method);
+                    }
+                    return super.visitMethodInvocation(node, aVoid);
+                }
+            }.scan(unit, null);
+        }
+        return methods;
+    }
+
+    void scan(DslScanner scanner) {
+        for(TaskEvent event : events) {
+            scanner.finished(event);
+        }
+    }
+
+    private static long countStatements(CompilationUnitTree unit) {
+        long[] count = {0};
+        unit.accept(new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitExpressionStatement(ExpressionStatementTree node, Void aVoid) {
+                count[0]++;
+                return super.visitExpressionStatement(node, aVoid);
+            }
+        }, null);
+        return count[0];
+    }
+
+    private static long countNodes(CompilationUnitTree unit) {
+        long[] count = {0};
+        unit.accept(new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree tree, Void aVoid) {
+                if(tree != null) {
+                    count[0]++;
+                }
+                return super.scan(tree, aVoid);
+            }
+        }, null);
+        return count[0] + 1;
+    }
+
+}
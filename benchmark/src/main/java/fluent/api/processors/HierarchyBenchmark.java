@@ -0,0 +1,85 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.lang.model.element.TypeElement;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Benchmark of resolution of end method tables of all DSL types of the corpus (including their supertypes), starting
+ * with empty cache in every invocation, as at the beginning of each compilation. Corpus HIERARCHY contains deep
+ * generic DSL hierarchies with diamonds and several parameterizations of the same types.
+ *
+ * Benchmark platform does the same for common platform types, which never require end method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchyBenchmark {
+
+    private static final String[] PLATFORM_TYPES = {
+            "java.lang.String", "java.lang.Integer", "java.math.BigDecimal", "java.util.ArrayList", "java.util.HashMap",
+            "java.util.Optional", "java.util.stream.Stream", "java.util.concurrent.CompletableFuture",
+            "java.time.LocalDate", "java.io.File"
+    };
+
+    private final Diagnosis diagnosis = new Diagnosis();
+
+    @Benchmark
+    public int resolve(AttributedCorpus corpus) {
+        AnnotationUtils utils = corpus.annotationUtils();
+        int dsl = 0;
+        for(TypeElement type : corpus.dslTypes) {
+            if(utils.requiresEnd(type.asType(), diagnosis)) {
+                dsl++;
+            }
+        }
+        return dsl;
+    }
+
+    @Benchmark
+    public int platform(AttributedCorpus corpus) {
+        AnnotationUtils utils = corpus.annotationUtils();
+        int dsl = 0;
+        for(TypeElement type : corpus.platformTypes(PLATFORM_TYPES)) {
+            if(utils.requiresEnd(type.asType(), diagnosis)) {
+                dsl++;
+            }
+        }
+        return dsl;
+    }
+
+}
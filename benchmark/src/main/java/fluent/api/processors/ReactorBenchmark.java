@@ -0,0 +1,135 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import fluent.api.CorpusGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.processing.Processor;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static fluent.api.CorpusGenerator.Statement.CHAIN;
+import static fluent.api.CorpusGenerator.Statement.START;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Benchmark of repeated compilations in one JVM (like modules of a maven reactor or builds in a gradle daemon), using
+ * DSL types with deep generic hierarchies from a jar on the class path. Like build tools, every compilation loads the
+ * processor by new class loader. With sharedTables=true end method tables of the DSL types are resolved only by the
+ * first compilation, and reused by the following ones. Tables are needed only for sentences, which don't end with an
+ * end method, so every 5th sentence of the compiled module misses it.
+ *
+ * Cost of the check itself is small compared to the whole compilation, so at the end the benchmark also prints average
+ * time spent in the check per compilation (published via JMX metrics).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactorBenchmark {
+
+    @Param({"false", "true"})
+    public boolean sharedTables;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    private final CorpusGenerator generator = new CorpusGenerator().statements(CHAIN, START).chainLength(20).supertypeDepth(12).typeArguments(4).endTypes(20).statementsPerFile(100).missingEndEvery(5);
+    private final URL processorPath = EndProcessor.class.getProtectionDomain().getCodeSource().getLocation();
+    private StandardJavaFileManager fileManager;
+    private List<JavaFileObject> sources;
+    private List<String> options;
+
+    @Setup
+    public void compileLibrary() throws IOException {
+        fileManager = compiler.getStandardFileManager(null, null, UTF_8);
+        Path library = Files.createTempDirectory("fluent-api-library");
+        List<String> libraryOptions = asList("-proc:none", "-d", library.toString(), "-classpath", System.getProperty("java.class.path"));
+        if(!compiler.getTask(null, fileManager, null, libraryOptions, null, generator.dsl()).call()) {
+            throw new IllegalStateException("Library of the benchmark is expected to compile.");
+        }
+        Path jar = jar(library);
+        sources = generator.corpus();
+        Path output = Files.createTempDirectory("fluent-api-module");
+        options = new ArrayList<>(asList("-d", output.toString(), "-classpath", jar + File.pathSeparator + System.getProperty("java.class.path")));
+        options.addAll(asList("-A" + EndProcessor.SHARED_TABLES + "=" + sharedTables, "-A" + EndProcessor.JMX + "=true"));
+    }
+
+    private static Path jar(Path directory) throws IOException {
+        Path jar = Files.createTempFile("fluent-api-library", ".jar");
+        try(JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar)); Stream<Path> files = Files.walk(directory)) {
+            for(Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                output.putNextEntry(new JarEntry(directory.relativize(file).toString().replace(File.separatorChar, '/')));
+                output.write(Files.readAllBytes(file));
+                output.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @TearDown
+    public void close() throws IOException, JMException {
+        fileManager.close();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        double scanTime = ((Number) server.getAttribute(name, "ScanTimeMillis")).doubleValue();
+        long compilations = ((Number) server.getAttribute(name, "Compilations")).longValue();
+        System.out.printf("%nCheck took %.2f ms per compilation, %d hierarchy walks, %d shared tables reused.%n", scanTime / compilations, server.getAttribute(name, "HierarchyWalks"), server.getAttribute(name, "SharedTables"));
+        server.invoke(name, "reset", null, null);
+    }
+
+    @Benchmark
+    public Boolean compile() throws IOException, ReflectiveOperationException {
+        try(URLClassLoader processorLoader = new URLClassLoader(new URL[]{processorPath}, ClassLoader.getSystemClassLoader().getParent())) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+            task.setProcessors(singletonList((Processor) processorLoader.loadClass(EndProcessor.class.getName()).getConstructor().newInstance()));
+            return task.call();
+        }
+    }
+
+}
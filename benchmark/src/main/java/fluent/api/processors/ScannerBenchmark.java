@@ -0,0 +1,89 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import org.openjdk.jmh.annotations.*;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.openjdk.jmh.annotations.AuxCounters.Type.OPERATIONS;
+
+/**
+ * Benchmark of the end method check scanning pipeline (DslScanner, AnnotationUtils and optionally NameFilter) over
+ * pre-attributed compilation units.
+ *
+ * Besides time of one pass over the whole corpus, it reports secondary results scan:statements and scan:units, which
+ * are average times per expression statement and per compilation unit.
+ *
+ * Benchmark coldScan creates new scanner for every pass, so it includes resolution of end methods of all types used
+ * in the corpus (DSL types as well as platform types), as done once in every compilation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScannerBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(OPERATIONS)
+    public static class Counters {
+        public long statements;
+        public long units;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            units = 0;
+        }
+    }
+
+    private DslScanner scanner;
+
+    @Setup
+    public void createScanner(AttributedCorpus corpus) {
+        scanner = corpus.scanner();
+    }
+
+    @Benchmark
+    public void scan(AttributedCorpus corpus, Counters counters) {
+        corpus.scan(scanner);
+        counters.statements += corpus.statements;
+        counters.units += corpus.units.size();
+    }
+
+    @Benchmark
+    public void coldScan(AttributedCorpus corpus, Counters counters) {
+        corpus.scan(corpus.scanner());
+        counters.statements += corpus.statements;
+        counters.units += corpus.units.size();
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Benchmark of the fixed cost, which the end method check adds to one javac invocation. It compiles a tiny class
+ * without any DSL code, with and without the processor, so the difference is the startup overhead of the processor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StartupBenchmark {
+
+    public enum Processing {
+        NONE("-proc:none"), END_CHECK("-processor", EndProcessor.class.getName());
+
+        private final List<String> options;
+
+        Processing(String... options) {
+            this.options = asList(options);
+        }
+    }
+
+    @Param
+    public Processing processing;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    private final JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///corpus/Plain.java"), JavaFileObject.Kind.SOURCE) {
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return "package corpus; public class Plain { private int value; public int getValue() { return value; } }";
+        }
+    };
+    private StandardJavaFileManager fileManager;
+    private List<String> options;
+
+    @Setup
+    public void prepare() throws IOException {
+        fileManager = compiler.getStandardFileManager(null, null, UTF_8);
+        Path output = Files.createTempDirectory("fluent-api-startup");
+        options = new ArrayList<>(asList("-d", output.toString(), "-classpath", System.getProperty("java.class.path")));
+        options.addAll(processing.options);
+    }
+
+    @TearDown
+    public void close() throws IOException {
+        fileManager.close();
+    }
+
+    @Benchmark
+    public Boolean compile() {
+        return compiler.getTask(null, fileManager, null, options, null, singletonList(source)).call();
+    }
+
+}
@@ -57,4 +57,13 @@ public @interface EndMethodCheckFile {
      */
     String content() default "";
 
+    /**
+     * Optional request to write also machine readable manifest of the check run next to the file. The manifest is
+     * a properties file named by the unique file name extended with suffix ".properties", containing version of the
+     * processor, number of scanned compilation units, checked statements, reported violations, total scan time and
+     * end methods cache statistics. It can be read using EndProcessor.assertThatRunManifestExists(uniqueFileName).
+     * @return True if the manifest should be written.
+     */
+    boolean manifest() default false;
+
 }
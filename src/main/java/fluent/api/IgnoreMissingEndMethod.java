@@ -36,14 +36,13 @@ import java.lang.annotation.Target;
 import java.lang.annotation.ElementType;
 
 /**
- * Annotation is marking terminal methods - methods, that need to be invoked in order to make sure, that some action
- * is performed.
- * Typically if we have a builder pattern, which is not actually returning it's result, it's simple to forget the
- * terminal method, and not have the things done.
+ * Annotation bypassing the end method check. It can be used on a method, to bypass check of it's statements, on a type
+ * to bypass check of all it's members (including nested types), or on a package (in package-info.java), to bypass
+ * check of all types in the package (not in it's sub-packages). Ignored types and packages are not traversed at all.
  *
- * Example of such method - send(), save(), verify(), execute(), etc.
+ * Whole module can be bypassed using processor option fluent.api.ignoreMissingEndMethod=true.
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.METHOD})
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.PACKAGE})
 @Documented
 public @interface IgnoreMissingEndMethod {}
@@ -32,75 +32,389 @@ package fluent.api.processors;
 import fluent.api.End;
 import fluent.api.Start;
 
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static fluent.api.processors.Tracing.Phase.END_METHODS_RESOLUTION;
+import static fluent.api.processors.Tracing.TRACING;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.isNull;
-import static java.util.stream.Collectors.toSet;
+import static java.util.Objects.nonNull;
+import static javax.lang.model.element.ElementKind.METHOD;
 
 /**
  * Class with utility methods for testing Java source elements for annotations indicating @Start or @End of fluent API
  * sentence completeness checks.
+ *
+ * Decisions about statements, which pass the check, are meant to not allocate anything. Therefore annotations are
+ * recognized by identity of their type elements (instead of creating annotation proxies), end methods are kept in
+ * tables keyed by identity of the type element, holding the method elements (so no names or signatures are rendered
+ * to test a method), and positive decisions only record their reason in a {@link Diagnosis}, without formatting the
+ * error message.
+ *
+ * Only the external end methods, loaded from files, are identified by strings (qualified type name and method
+ * signature). They are resolved to method elements once, when the utilities are created.
+ *
+ * Types from platform packages (and packages of libraries known not to use the annotations) are rejected without
+ * enumerating their members, unless they inherit from a type with external end methods.
  */
 class AnnotationUtils {
 
-	private final Map<String, Set<String>> endMethodsCache;
+	static final List<String> PLATFORM_PACKAGES = unmodifiableList(asList("java.**", "javax.**", "jdk.**", "sun.**", "com.sun.**", "org.w3c.**", "org.xml.**", "org.ietf.**"));
+
+	private final Map<Element, Set<Element>> endMethodsCache;
+	private final Set<Element> externalEndMethods = new HashSet<>();
+	private final Map<Element, String> endMessages = new HashMap<>();
+	private final Map<Element, Classification> classifications = new HashMap<>();
+	private final PackageFilter libraryPackages;
+	private final Map<Element, Boolean> libraryPackageCache = new HashMap<>();
+	private final List<TypeMirror> libraryExternalTypes = new ArrayList<>();
+	private final SharedEndMethods shared;
 	private final Types types;
+	private final Elements elements;
+	private final TypeElement startAnnotation;
+	private final TypeElement endAnnotation;
+	private final Statistics statistics;
 
-	AnnotationUtils(Map<String, Set<String>> endMethodsCache, Types types) {
+	/**
+	 * @param externalEndMethods External end methods - qualified type name to signatures of it's end methods.
+	 * @param endMethodsCache Cache of end methods of types (including inherited ones) keyed by the type element.
+	 * @param libraryPackages Patterns of packages of libraries without any end methods (besides the platform ones).
+	 * @param shared End method tables shared with other compilations, or null, if they are not shared.
+	 */
+	AnnotationUtils(Map<String, Set<String>> externalEndMethods, Map<Element, Set<Element>> endMethodsCache, List<String> libraryPackages, SharedEndMethods shared, Types types, Elements elements, Statistics statistics) {
 		this.endMethodsCache = endMethodsCache;
+		this.shared = shared;
+		List<String> packages = new ArrayList<>(PLATFORM_PACKAGES);
+		packages.addAll(libraryPackages);
+		this.libraryPackages = new PackageFilter(packages, emptyList());
 		this.types = types;
+		this.elements = elements;
+		this.startAnnotation = elements.getTypeElement(Start.class.getName());
+		this.endAnnotation = elements.getTypeElement(End.class.getName());
+		this.statistics = statistics;
+		externalEndMethods.forEach(this::resolveExternalEndMethods);
 	}
 
-	boolean isStart(Element element, String[] errorMessage) {
-		Start start = element.getAnnotation(Start.class);
+	private void resolveExternalEndMethods(String typeName, Set<String> signatures) {
+		TypeElement type = elements.getTypeElement(typeName);
+		if(nonNull(type)) {
+			for(Element member : type.getEnclosedElements()) {
+				if(member.getKind() == METHOD && signatures.contains(member.toString())) {
+					externalEndMethods.add(member);
+				}
+			}
+			if(isLibraryPackage(elements.getPackageOf(type))) {
+				libraryExternalTypes.add(types.erasure(type.asType()));
+			}
+		}
+	}
+
+	boolean isStart(Element element, Diagnosis diagnosis) {
+		AnnotationMirror start = classification(element).start;
 		if(isNull(start)) {
 			return false;
 		}
-		errorMessage[0] = start.value();
+		diagnosis.start(start);
 		return true;
 	}
 
-	boolean isEnd(Element element, String[] errorMessage) {
-        End end = element.getAnnotation(End.class);
-        if(isNull(end)) {
-            return endMethodsCache.getOrDefault(element.getEnclosingElement().toString(), emptySet()).contains(element.toString());
-        }
-        if(!end.message().isEmpty()) {
-            errorMessage[0] = end.message();
-        }
-        return true;
+	/**
+	 * Check if the element is end method - annotated with @End, defined in external end methods file, or overriding
+	 * an end method. Custom error message of the @End annotation is relevant only for types requiring end, so it's
+	 * not collected here, but when the end methods of a type are resolved.
+	 */
+	boolean isEnd(Element element) {
+		return classification(element).end;
+	}
+
+	/**
+	 * The same few DSL methods are queried over and over again, so their classification is memoized, and every
+	 * repeated query is a single identity map lookup.
+	 */
+	private Classification classification(Element element) {
+		Classification classification = classifications.get(element);
+		if(isNull(classification)) {
+			classification = classify(element);
+			classifications.put(element, classification);
+		}
+		return classification;
 	}
 
-	boolean requiresEnd(TypeMirror tree, String[] errorMessage) {
-		Set<String> methods = getEndMethods(tree, errorMessage);
-		if(!methods.isEmpty()) {
-			if(errorMessage[0] == null) errorMessage[0] = "Method chain must end with " + (methods.size() > 1 ? "one of the following methods: " : "method: ") + methods;
-			return true;
+	private Classification classify(Element element) {
+		AnnotationMirror start = annotation(element, startAnnotation);
+		boolean end = element.getKind() == METHOD && (nonNull(annotation(element, endAnnotation)) || externalEndMethods.contains(element) || getEndMethods(element.getEnclosingElement()).contains(element));
+		if(isNull(start)) {
+			return end ? Classification.END : Classification.NONE;
 		}
-		return false;
+		return new Classification(start, end);
 	}
 
-	private Set<String> getEndMethods(TypeMirror typeMirror, String[] errorMessage) {
-		Element element = types.asElement(typeMirror);
+	boolean requiresEnd(TypeMirror type, Diagnosis diagnosis) {
+		Element element = types.asElement(type);
 		if(isNull(element)) {
-			return emptySet();
+			return false;
 		}
-		String elementName = element.toString();
-		if(!endMethodsCache.containsKey(elementName)) {
-			endMethodsCache.put(elementName, getEndMethods(element, errorMessage));
+		Set<Element> methods = getEndMethods(element);
+		if(methods.isEmpty()) {
+			return false;
 		}
-		return endMethodsCache.get(elementName);
+		diagnosis.requiresEnd(methods, endMessages.get(element));
+		return true;
 	}
 
-	private Set<String> getEndMethods(Element element, String[] errorMessage) {
-		Set<String> methods = element.getEnclosedElements().stream().filter(e -> isEnd(e, errorMessage)).map(Object::toString).collect(toSet());
-		types.directSupertypes(element.asType()).forEach(type -> methods.addAll(getEndMethods(type, errorMessage)));
+	private Set<Element> getEndMethods(Element element) {
+		Set<Element> methods = endMethodsCache.get(element);
+		if(nonNull(methods)) {
+			statistics.cacheHits++;
+			return methods;
+		}
+		statistics.cacheMisses++;
+		if(!isRejected(element)) {
+			resolveHierarchy(element);
+		}
+		return endMethodsCache.get(element);
+	}
+
+	/**
+	 * Fast rejection of library types (most of checked expressions are of platform types like String, List or
+	 * Optional), without completing and enumerating their members. External end methods go first, so a library type
+	 * inheriting from a type with external end methods is never rejected.
+	 */
+	private boolean isRejected(Element type) {
+		if(!(type instanceof TypeElement) || !isLibraryPackage(elements.getPackageOf(type))) {
+			return false;
+		}
+		if(!libraryExternalTypes.isEmpty()) {
+			TypeMirror erasure = types.erasure(type.asType());
+			for(TypeMirror externalType : libraryExternalTypes) {
+				if(types.isSubtype(erasure, externalType)) {
+					return false;
+				}
+			}
+		}
+		statistics.rejectedTypes++;
+		endMethodsCache.put(type, emptySet());
+		return true;
+	}
+
+	private boolean isLibraryPackage(PackageElement element) {
+		Boolean library = libraryPackageCache.get(element);
+		if(isNull(library)) {
+			library = libraryPackages.accepts(element.getQualifiedName());
+			libraryPackageCache.put(element, library);
+		}
+		return library;
+	}
+
+	/**
+	 * Resolve end methods of the type and all it's supertypes, which are not resolved yet, in topological order
+	 * (supertypes first), so every type is resolved exactly once, reusing already resolved tables of it's direct
+	 * supertypes. The hierarchy is walked on declarations of the types (i.e. erased), so all parameterizations of
+	 * a generic type share one table.
+	 *
+	 * The walk is iterative, so deep hierarchies don't consume stack. A type is resolved when it's seen on top of the
+	 * stack second time, even if some of it's supertypes are not resolved yet, which only happens for cyclic
+	 * hierarchies in erroneous code.
+	 */
+	private void resolveHierarchy(Element element) {
+		Deque<Element> pending = new ArrayDeque<>();
+		Map<Element, List<Element>> expanded = new HashMap<>();
+		pending.push(element);
+		while(!pending.isEmpty()) {
+			Element type = pending.peek();
+			if(endMethodsCache.containsKey(type)) {
+				pending.pop();
+				continue;
+			}
+			List<Element> supertypes = expanded.get(type);
+			if(isNull(supertypes)) {
+				if(isRejected(type) || isShared(type)) {
+					pending.pop();
+					continue;
+				}
+				supertypes = supertypes(type);
+				expanded.put(type, supertypes);
+				int size = pending.size();
+				for(Element supertype : supertypes) {
+					if(!endMethodsCache.containsKey(supertype)) {
+						pending.push(supertype);
+					}
+				}
+				if(pending.size() > size) {
+					continue;
+				}
+			}
+			pending.pop();
+			Set<Element> methods = resolveEndMethods(type, supertypes);
+			endMethodsCache.put(type, methods);
+			if(nonNull(shared)) {
+				shared.put(type, supertypes, methods, endMessages.get(type));
+			}
+		}
+	}
+
+	/**
+	 * Take the table of the type from tables shared with other compilations, if there is valid one.
+	 */
+	private boolean isShared(Element type) {
+		Set<Element> methods = isNull(shared) ? null : shared.get(type, endMessages);
+		if(isNull(methods)) {
+			return false;
+		}
+		statistics.sharedTables++;
+		endMethodsCache.put(type, methods);
+		return true;
+	}
+
+	/**
+	 * Direct supertypes of a type declaration don't need any type substitution (unlike
+	 * {@link Types#directSupertypes(TypeMirror)}), so they are taken from the type element. Other elements (type
+	 * parameters) are resolved from their type.
+	 */
+	private List<Element> supertypes(Element type) {
+		List<Element> supertypes = new ArrayList<>();
+		if(type instanceof TypeElement) {
+			addSupertype(((TypeElement) type).getSuperclass(), supertypes);
+			for(TypeMirror supertype : ((TypeElement) type).getInterfaces()) {
+				addSupertype(supertype, supertypes);
+			}
+		} else {
+			for(TypeMirror supertype : types.directSupertypes(type.asType())) {
+				addSupertype(supertype, supertypes);
+			}
+		}
+		return supertypes;
+	}
+
+	private void addSupertype(TypeMirror supertype, List<Element> supertypes) {
+		Element element = types.asElement(supertype);
+		if(nonNull(element)) {
+			supertypes.add(element);
+		}
+	}
+
+	/**
+	 * End methods of a type are it's own end methods, inherited end methods and methods overriding them. Custom message
+	 * of the @End annotation declared in the type itself has precedence over the inherited ones.
+	 *
+	 * If a type doesn't add any end method to the table of it's supertypes (e.g. all supertypes with end methods share
+	 * the same table, like in linear or diamond DSL hierarchies), it shares the table too.
+	 */
+	private Set<Element> resolveEndMethods(Element element, List<Element> supertypes) {
+		statistics.hierarchyWalks++;
+		Object event = TRACING.begin(END_METHODS_RESOLUTION);
+		Set<Element> methods = new LinkedHashSet<>();
+		String message = null;
+		for(Element member : element.getEnclosedElements()) {
+			AnnotationMirror end = annotation(member, endAnnotation);
+			if(nonNull(end)) {
+				methods.add(member);
+				String customMessage = value(end, "message");
+				if(!customMessage.isEmpty()) {
+					message = customMessage;
+				}
+			} else if(externalEndMethods.contains(member)) {
+				methods.add(member);
+			}
+		}
+		Set<Element> shared = null;
+		Set<Element> inherited = new LinkedHashSet<>();
+		for(Element supertype : supertypes) {
+			Set<Element> supertypeMethods = endMethodsCache.get(supertype);
+			if(nonNull(supertypeMethods) && !supertypeMethods.isEmpty()) {
+				shared = isNull(shared) || shared == supertypeMethods ? supertypeMethods : inherited;
+				inherited.addAll(supertypeMethods);
+			}
+			if(isNull(message)) {
+				message = endMessages.get(supertype);
+			}
+		}
+		if(!inherited.isEmpty()) {
+			addOverriding(element, inherited, methods);
+			if(methods.isEmpty() && shared != inherited) {
+				methods = shared;
+			} else {
+				methods.addAll(inherited);
+			}
+		}
+		if(nonNull(message)) {
+			endMessages.put(element, message);
+		}
+		TRACING.end(event, element);
 		return methods.isEmpty() ? emptySet() : methods;
 	}
 
+	private void addOverriding(Element type, Set<Element> inherited, Set<Element> methods) {
+		for(Element member : type.getEnclosedElements()) {
+			if(member.getKind() == METHOD && !methods.contains(member)) {
+				for(Element method : inherited) {
+					if(method.getSimpleName() == member.getSimpleName() && elements.overrides((ExecutableElement) member, (ExecutableElement) method, (TypeElement) type)) {
+						methods.add(member);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	static AnnotationMirror annotation(Element element, TypeElement annotationType) {
+		List<? extends AnnotationMirror> mirrors = element.getAnnotationMirrors();
+		// Indexed loop, because the lists are tiny, and it doesn't need any iterator.
+		for(int i = 0; i < mirrors.size(); i++) {
+			AnnotationMirror mirror = mirrors.get(i);
+			if(mirror.getAnnotationType().asElement() == annotationType) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	static String value(AnnotationMirror mirror, String name) {
+		for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+			if(entry.getKey().getSimpleName().contentEquals(name)) {
+				return String.valueOf(entry.getValue().getValue());
+			}
+		}
+		return "";
+	}
+
+	/**
+	 * Classification of an element as start method (holding the @Start annotation needed for diagnosis) and/or end
+	 * method.
+	 */
+	private static final class Classification {
+
+		static final Classification NONE = new Classification(null, false);
+		static final Classification END = new Classification(null, true);
+
+		final AnnotationMirror start;
+		final boolean end;
+
+		Classification(AnnotationMirror start, boolean end) {
+			this.start = start;
+			this.end = end;
+		}
+
+	}
+
 }
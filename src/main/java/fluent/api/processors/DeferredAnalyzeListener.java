@@ -29,55 +29,46 @@
 
 package fluent.api.processors;
 
-import javax.lang.model.element.*;
-import java.util.function.BiPredicate;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
 
-class ExecutableElementTest<P> implements ElementVisitor<Boolean, P> {
+import java.util.function.Supplier;
 
-    private final BiPredicate<ExecutableElement, P> consumer;
+import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static java.util.Objects.isNull;
 
-    ExecutableElementTest(BiPredicate<ExecutableElement, P> consumer) {
-        this.consumer = consumer;
-    }
-
-    @Override
-    public Boolean visit(Element e, P o) {
-        return false;
-    }
-
-    @Override
-    public Boolean visit(Element e) {
-        return false;
-    }
-
-    @Override
-    public Boolean visitPackage(PackageElement e, P o) {
-        return false;
-    }
+/**
+ * Compiler plugin, which creates the real plugin listening to ANALYZE events only when the first compilation unit gets
+ * analyzed. So compilations, which don't analyze any source, don't pay for its creation.
+ */
+class DeferredAnalyzeListener implements TaskListener {
 
-    @Override
-    public Boolean visitType(TypeElement e, P o) {
-        return false;
-    }
+	private final Supplier<? extends TaskListener> factory;
+	private TaskListener listener;
 
-    @Override
-    public Boolean visitVariable(VariableElement e, P o) {
-        return false;
-    }
+	DeferredAnalyzeListener(Supplier<? extends TaskListener> factory) {
+		this.factory = factory;
+	}
 
-    @Override
-    public Boolean visitExecutable(ExecutableElement e, P methods) {
-        return consumer.test(e, methods);
-    }
+	@Override
+	public void started(TaskEvent taskEvent) {
+		if(taskEvent.getKind() == ANALYZE) {
+			listener().started(taskEvent);
+		}
+	}
 
-    @Override
-    public Boolean visitTypeParameter(TypeParameterElement e, P o) {
-        return false;
-    }
+	@Override
+	public void finished(TaskEvent taskEvent) {
+		if(taskEvent.getKind() == ANALYZE) {
+			listener().finished(taskEvent);
+		}
+	}
 
-    @Override
-    public Boolean visitUnknown(Element e, P o) {
-        return false;
-    }
+	private TaskListener listener() {
+		if(isNull(listener)) {
+			listener = factory.get();
+		}
+		return listener;
+	}
 
 }
@@ -0,0 +1,85 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import java.util.Set;
+
+import static fluent.api.processors.AnnotationUtils.value;
+import static java.util.Objects.nonNull;
+
+/**
+ * Reason, why a sentence requires end method. It only holds what the decision was based on - the @Start annotation,
+ * or end methods of the type requiring end. Text of the error message is built only when it's really reported, so
+ * that decisions don't format any strings.
+ *
+ * Instances are mutable and reused by the scanner.
+ */
+final class Diagnosis {
+
+	private AnnotationMirror start;
+	private Set<Element> endMethods;
+	private String endMessage;
+
+	void start(AnnotationMirror start) {
+		this.start = start;
+		this.endMethods = null;
+		this.endMessage = null;
+	}
+
+	/**
+	 * @param endMethods End methods of the type requiring end.
+	 * @param endMessage Custom message of the @End annotation, or null if there is none.
+	 */
+	void requiresEnd(Set<Element> endMethods, String endMessage) {
+		this.start = null;
+		this.endMethods = endMethods;
+		this.endMessage = endMessage;
+	}
+
+	void clear() {
+		start(null);
+	}
+
+	String message() {
+		if(nonNull(start)) {
+			return value(start, "value");
+		}
+		if(nonNull(endMessage)) {
+			return endMessage;
+		}
+		if(nonNull(endMethods)) {
+			return "Method chain must end with " + (endMethods.size() > 1 ? "one of the following methods: " : "method: ") + endMethods;
+		}
+		return null;
+	}
+
+}
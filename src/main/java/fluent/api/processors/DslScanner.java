@@ -33,34 +33,113 @@ import com.sun.source.tree.*;
 import com.sun.source.util.*;
 import fluent.api.IgnoreMissingEndMethod;
 
-import javax.lang.model.element.Element;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.sun.source.tree.LambdaExpressionTree.BodyKind.EXPRESSION;
 import static com.sun.source.tree.Tree.Kind.ASSIGNMENT;
+import static com.sun.source.tree.Tree.Kind.IDENTIFIER;
+import static com.sun.source.tree.Tree.Kind.METHOD_INVOCATION;
 import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static fluent.api.processors.AnnotationUtils.annotation;
+import static fluent.api.processors.Statistics.millis;
+import static fluent.api.processors.Tracing.Phase.COMPILATION_UNIT_SCANNING;
+import static fluent.api.processors.Tracing.TRACING;
+import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static javax.lang.model.element.ElementKind.CONSTRUCTOR;
+import static javax.lang.model.element.ElementKind.METHOD;
+import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.type.TypeKind.VOID;
 import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.WARNING;
 
 /**
  * Compiler plugin scanning the source code for expression, which are supposed to be terminated by special terminal
  * methods (annotated with @End annotation), but were not.
+ *
+ * The source is traversed only once. The parameter of the visit methods tells, if the result - whether the visited
+ * expression is unterminated sentence - is needed. It's needed only for the expressions forming the method chain of
+ * checked statement, lambda or method reference. All other subtrees are just scanned for nested statements, lambdas
+ * and method references. Subtrees, which can't contain any of them (imports, annotations, modifiers and types in
+ * declarations) are not visited at all.
  */
-class DslScanner extends TreePathScanner<Void, Void> implements TaskListener {
+class DslScanner extends TreePathScanner<Boolean, Boolean> implements TaskListener {
+
+	private static final ElementVisitor<TypeMirror, Void> TYPE_OF = new ElementVisitor<TypeMirror, Void>() {
+		@Override public TypeMirror visit(Element e, Void aVoid) { return e.accept(this, aVoid); }
+		@Override public TypeMirror visit(Element e) { return e.accept(this, null); }
+		@Override public TypeMirror visitPackage(PackageElement e, Void aVoid) { return e.asType(); }
+		@Override public TypeMirror visitType(TypeElement e, Void aVoid) { return e.asType(); }
+		@Override public TypeMirror visitVariable(VariableElement e, Void aVoid) { return e.asType(); }
+		@Override public TypeMirror visitExecutable(ExecutableElement e, Void aVoid) { return e.getKind() == CONSTRUCTOR ? visit(e.getEnclosingElement()) : e.getReturnType(); }
+		@Override public TypeMirror visitTypeParameter(TypeParameterElement e, Void aVoid) { return e.asType(); }
+		@Override public TypeMirror visitUnknown(Element e, Void aVoid) { return e.asType(); }
+	};
 
-	private final UnterminatedSentenceScanner unterminatedSentenceScanner;
+	private final Supplier<AnnotationUtils> annotationUtilsFactory;
+	private final Function<AnnotationUtils, NameFilter> nameFilterFactory;
+	private final GeneratedSources generatedSources;
+	private final PackageFilter packageFilter;
 	private final Trees trees;
 	private final Types types;
+	private final Elements elements;
+	private final TypeElement ignoreAnnotation;
+	private final Name superName;
+	private final Name thisName;
+	private final Statistics statistics;
+	private final long unitBudget;
+	private final List<Diagnosis> diagnoses = new ArrayList<>();
+	private final Map<CompilationUnitTree, ScannedUnit> scannedUnits = new WeakHashMap<>();
+	private final List<TreePath> deferred = new ArrayList<>();
+	private final Map<Element, Boolean> excludedPackages = new HashMap<>();
+	private final Map<Element, Boolean> voidDescriptors = new HashMap<>();
+	private AnnotationUtils annotationUtils;
+	private NameFilter nameFilter;
+	private Diagnosis diagnosis;
+	private int depth = -1;
+	private long initTime;
 
-	DslScanner(UnterminatedSentenceScanner unterminatedSentenceScanner, Trees trees, Types types) {
-		this.unterminatedSentenceScanner = unterminatedSentenceScanner;
+	/**
+	 * @param annotationUtilsFactory Factory of the annotation utilities deciding about the sentences. It's invoked only
+	 *                   when the first candidate expression is found, because it's creation may be costly (e.g. loading
+	 *                   of external end methods from the class path).
+	 * @param nameFilterFactory Factory of the filter of compilation units, which can't reference any DSL, or null if
+	 *                   all compilation units are scanned.
+	 * @param generatedSources Recognition of generated compilation units, which are skipped, or null if generated
+	 *                   compilation units are scanned too.
+	 * @param packageFilter Filter of packages to be checked, or null if all packages are checked.
+	 * @param unitBudget Time in nanoseconds, which scanning of one compilation unit should not exceed, otherwise
+	 *                   a warning is reported. Zero means no budget.
+	 */
+	DslScanner(Supplier<AnnotationUtils> annotationUtilsFactory, Function<AnnotationUtils, NameFilter> nameFilterFactory, GeneratedSources generatedSources, PackageFilter packageFilter, Trees trees, Types types, Elements elements, Statistics statistics, long unitBudget) {
+		this.annotationUtilsFactory = annotationUtilsFactory;
+		this.nameFilterFactory = nameFilterFactory;
+		this.generatedSources = generatedSources;
+		this.packageFilter = packageFilter;
 		this.trees = trees;
 		this.types = types;
+		this.elements = elements;
+		this.ignoreAnnotation = elements.getTypeElement(IgnoreMissingEndMethod.class.getName());
+		this.superName = elements.getName("super");
+		this.thisName = elements.getName("this");
+		this.statistics = statistics;
+		this.unitBudget = unitBudget;
 	}
 
 	@Override
@@ -70,55 +149,569 @@ class DslScanner extends TreePathScanner<Void, Void> implements TaskListener {
 
 	@Override
 	public void finished(TaskEvent taskEvent) {
-		if(taskEvent.getKind() == ANALYZE) try {
-			scan(taskEvent.getCompilationUnit(), null);
-		} catch (RuntimeException runtimeException) {
-			StringWriter writer = new StringWriter();
-			runtimeException.printStackTrace(new PrintWriter(writer));
-			trees.printMessage(ERROR, "@End method check failed. Please raise report at: https://github.com/c0stra/fluent-api-end-check/issues with following details: " + writer, taskEvent.getCompilationUnit(), taskEvent.getCompilationUnit());
+		if(taskEvent.getKind() == ANALYZE) {
+			CompilationUnitTree unit = taskEvent.getCompilationUnit();
+			ScannedUnit scanned = scannedUnits.get(unit);
+			boolean firstVisit = isNull(scanned);
+			if(firstVisit) {
+				scanned = new ScannedUnit();
+				scannedUnits.put(unit, scanned);
+			}
+			long start = System.nanoTime();
+			initTime = 0;
+			if(isSkipped(unit, firstVisit)) {
+				statistics.scanTime += System.nanoTime() - start - initTime;
+				return;
+			}
+			TreePath scope = scope(unit, taskEvent.getTypeElement(), scanned, firstVisit);
+			if(isNull(scope)) {
+				return;
+			}
+			long statements = statistics.statements;
+			Object event = TRACING.begin(COMPILATION_UNIT_SCANNING);
+			try {
+				depth = -1;
+				scan(scope, false);
+			} catch (RuntimeException runtimeException) {
+				StringWriter writer = new StringWriter();
+				runtimeException.printStackTrace(new PrintWriter(writer));
+				trees.printMessage(ERROR, "@End method check failed. Please raise report at: https://github.com/c0stra/fluent-api-end-check/issues with following details: " + writer, unit, unit);
+			} finally {
+				long time = System.nanoTime() - start - initTime;
+				String name = unit.getSourceFile().getName();
+				TRACING.end(event, name);
+				statistics.unitScanned(name, firstVisit, statistics.statements - statements, time);
+				scanned.time += time;
+				if(unitBudget > 0 && scanned.time > unitBudget && !scanned.overBudget) {
+					scanned.overBudget = true;
+					trees.printMessage(WARNING, "@End method check of " + name + " took " + millis(scanned.time) + ", which exceeds the budget of " + millis(unitBudget) + ".", unit, unit);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Package annotations and filter are evaluated only once per package.
+	 */
+	private boolean isExcluded(CompilationUnitTree unit) {
+		Element element = element(new TreePath(unit));
+		return nonNull(element) && excludedPackages.computeIfAbsent(element, this::isExcluded);
+	}
+
+	private boolean isExcluded(Element element) {
+		if(isIgnored(element)) {
+			return true;
+		}
+		return nonNull(packageFilter) && element instanceof PackageElement && !packageFilter.accepts(((PackageElement) element).getQualifiedName());
+	}
+
+	private boolean isIgnored(Element element) {
+		return nonNull(annotation(element, ignoreAnnotation));
+	}
+
+	/**
+	 * Units in ignored or excluded packages, generated units and units surely not referencing any DSL are skipped.
+	 * They are counted only once, even if they contain multiple top level classes.
+	 */
+	private boolean isSkipped(CompilationUnitTree unit, boolean firstVisit) {
+		if(isExcluded(unit)) {
+			if(firstVisit) {
+				statistics.excludedUnits++;
+			}
+			return true;
+		}
+		if(nonNull(generatedSources) && generatedSources.isGenerated(unit)) {
+			if(firstVisit) {
+				statistics.generatedUnits++;
+			}
+			return true;
+		}
+		if(isFiltered(unit)) {
+			if(firstVisit) {
+				statistics.filteredUnits++;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private boolean isFiltered(CompilationUnitTree unit) {
+		if(isNull(nameFilterFactory)) {
+			return false;
+		}
+		if(isNull(nameFilter)) {
+			nameFilter = nameFilterFactory.apply(utils());
 		}
+		return !nameFilter.mayReference(unit);
+	}
+
+	/**
+	 * Javac reports ANALYZE event once per top level class, so only declaration of the analyzed class is scanned.
+	 * Whole compilation unit is scanned only if the class is not known on the first visit of the unit. Nothing is
+	 * scanned in the unit after that.
+	 *
+	 * @return Path to be scanned, or null if there is nothing left to scan.
+	 */
+	private TreePath scope(CompilationUnitTree unit, TypeElement type, ScannedUnit scanned, boolean firstVisit) {
+		if(scanned.whole) {
+			return null;
+		}
+		TreePath unitPath = new TreePath(unit);
+		if(nonNull(type)) {
+			for(Tree declaration : unit.getTypeDecls()) {
+				TreePath path = new TreePath(unitPath, declaration);
+				if(type.equals(element(path))) {
+					return path;
+				}
+			}
+		}
+		if(!firstVisit) {
+			return null;
+		}
+		scanned.whole = true;
+		return unitPath;
+	}
+
+	@Override
+	public Boolean scan(Tree tree, Boolean needed) {
+		if(nonNull(tree)) {
+			visited(tree);
+		}
+		return super.scan(tree, needed);
+	}
+
+	/**
+	 * Called for every tree node visited by the scan, including links of chains walked in a loop.
+	 */
+	void visited(Tree tree) {
+		statistics.nodes++;
+	}
+
+	/*
+	 * Declarations - only parts, which may contain statements, are visited.
+	 */
+
+	@Override
+	public Boolean visitCompilationUnit(CompilationUnitTree tree, Boolean needed) {
+		return scan(tree.getTypeDecls(), false);
+	}
+
+	@Override
+	public Boolean visitClass(ClassTree tree, Boolean needed) {
+		return isIgnored(element(getCurrentPath())) ? null : scan(tree.getMembers(), false);
+	}
+
+	@Override
+	public Boolean visitMethod(MethodTree methodTree, Boolean needed) {
+		return isIgnored(element(getCurrentPath())) ? null : scan(methodTree.getBody(), false);
 	}
 
 	@Override
-	public Void visitMethod(MethodTree methodTree, Void aVoid) {
-		Element element = trees.getElement(trees.getPath(getCurrentPath().getCompilationUnit(), methodTree));
-		return nonNull(element.getAnnotation(IgnoreMissingEndMethod.class)) ? null : super.visitMethod(methodTree, aVoid);
+	public Boolean visitVariable(VariableTree tree, Boolean needed) {
+		return scan(tree.getInitializer(), false);
 	}
 
 	@Override
-	public Void visitExpressionStatement(ExpressionStatementTree statement, Void aVoid) {
-		if(statement.getExpression().getKind() != ASSIGNMENT) {
-			scan(statement.getExpression());
+	public Boolean visitImport(ImportTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitAnnotation(AnnotationTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitModifiers(ModifiersTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitPrimitiveType(PrimitiveTypeTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitArrayType(ArrayTypeTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitParameterizedType(ParameterizedTypeTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitUnionType(UnionTypeTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitIntersectionType(IntersectionTypeTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitWildcard(WildcardTree tree, Boolean needed) {
+		return null;
+	}
+
+	@Override
+	public Boolean visitTypeParameter(TypeParameterTree tree, Boolean needed) {
+		return null;
+	}
+
+	/*
+	 * Checked constructs - statements, void lambdas and method references.
+	 *
+	 * At the top level, knowing, that expression ends, the fact, that last invoked method is @End method has higher
+	 * priority over the fact, that it may be starting new chain requiring end method.
+	 */
+
+	@Override
+	public Boolean visitExpressionStatement(ExpressionStatementTree statement, Boolean needed) {
+		statistics.statements++;
+		ExpressionTree expression = statement.getExpression();
+		if(expression.getKind() == ASSIGNMENT || isConstructorCall(expression)) {
+			return scan(expression, false);
 		}
-		return super.visitExpressionStatement(statement, aVoid);
+		startCheck();
+		endCheck(sentence(expression), expression);
+		return null;
 	}
 
 	@Override
-	public Void visitLambdaExpression(LambdaExpressionTree tree, Void aVoid) {
-		if(tree.getBodyKind() == EXPRESSION && isVoidLambda(tree) && tree.getBody().getKind() != ASSIGNMENT) {
-			scan(tree.getBody());
+	public Boolean visitLambdaExpression(LambdaExpressionTree tree, Boolean needed) {
+		statistics.lambdas++;
+		Tree body = tree.getBody();
+		if(tree.getBodyKind() != EXPRESSION) {
+			return scan(body, false);
+		}
+		if(body.getKind() != ASSIGNMENT && isVoidLambda()) {
+			startCheck();
+			endCheck(sentence((ExpressionTree) body), body);
+			return null;
 		}
-		return super.visitLambdaExpression(tree, null);
+		return TRUE.equals(needed) ? sentence((ExpressionTree) body) : scan(body, false);
 	}
 
 	@Override
-	public Void visitMemberReference(MemberReferenceTree tree, Void aVoid) {
-		if(isVoidLambda(tree)) {
-			scan(tree);
+	public Boolean visitMemberReference(MemberReferenceTree tree, Boolean needed) {
+		statistics.lambdas++;
+		if(isVoidLambda()) {
+			startCheck();
+			endCheck(reference(tree), tree);
+			return null;
+		}
+		return TRUE.equals(needed) ? reference(tree) : scan(tree.getQualifierExpression(), false);
+	}
+
+	/**
+	 * Checks may be nested (e.g. lambda in an argument of a method in a checked chain), so each nesting level has its
+	 * own diagnosis, and the nested check must not overwrite the diagnosis of the outer one.
+	 */
+	private void startCheck() {
+		if(++depth == diagnoses.size()) {
+			diagnoses.add(new Diagnosis());
+		}
+		diagnosis = diagnoses.get(depth);
+		diagnosis.clear();
+	}
+
+	private void endCheck(Boolean unterminated, Tree tree) {
+		if(TRUE.equals(unterminated)) {
+			statistics.violations++;
+			trees.printMessage(ERROR, diagnosis.message(), tree, getCurrentPath().getCompilationUnit());
+		}
+		diagnosis = --depth < 0 ? null : diagnoses.get(depth);
+	}
+
+	private Boolean sentence(ExpressionTree tree) {
+		if(tree.getKind() == METHOD_INVOCATION && utils().isEnd(element(tree))) {
+			return decided(FALSE, tree);
+		}
+		if(utils().requiresEnd(type(tree), diagnosis)) {
+			return decided(TRUE, tree);
+		}
+		return scan(tree, true);
+	}
+
+	private Boolean reference(MemberReferenceTree tree) {
+		Element member = element(tree);
+		if(utils().isEnd(member)) {
+			return decided(FALSE, tree.getQualifierExpression());
+		}
+		if(utils().isStart(member, diagnosis) || utils().requiresEnd(typeOf(member), diagnosis)) {
+			return decided(TRUE, tree.getQualifierExpression());
+		}
+		return scan(tree.getQualifierExpression(), true);
+	}
+
+	/**
+	 * Result is already decided, but the rest of the tree still needs to be scanned for nested checks.
+	 */
+	private Boolean decided(Boolean result, Tree rest) {
+		scan(rest, false);
+		return result;
+	}
+
+	/*
+	 * Drill down of the chain to identify unclosed opening of fluent sentence.
+	 */
+
+	@Override
+	public Boolean visitMethodInvocation(MethodInvocationTree tree, Boolean needed) {
+		return chain(needed);
+	}
+
+	@Override
+	public Boolean visitArrayAccess(ArrayAccessTree tree, Boolean needed) {
+		return chain(needed);
+	}
+
+	@Override
+	public Boolean visitMemberSelect(MemberSelectTree tree, Boolean needed) {
+		return chain(needed);
+	}
+
+	@Override
+	public Boolean visitNewClass(NewClassTree tree, Boolean needed) {
+		Boolean result = TRUE.equals(needed) ? utils().requiresEnd(type(tree), diagnosis) : null;
+		scan(tree.getEnclosingExpression(), false);
+		scan(tree.getArguments(), false);
+		scan(tree.getClassBody(), false);
+		return result;
+	}
+
+	@Override
+	public Boolean visitIdentifier(IdentifierTree tree, Boolean needed) {
+		return TRUE.equals(needed) ? utils().isStart(element(tree), diagnosis) : null;
+	}
+
+	/**
+	 * Walk the method chain starting at current path iteratively, so chains of thousands of calls (e.g. produced by
+	 * generators of builders) don't consume a stack frame per link. Method selects, invocations and array accesses
+	 * forming the chain are walked in a loop, and their arguments and indexes are deferred and scanned after the chain
+	 * is walked, innermost first, as they would be by the recursive scan.
+	 */
+	private Boolean chain(Boolean needed) {
+		int mark = deferred.size();
+		boolean decided = !TRUE.equals(needed);
+		Boolean result = null;
+		TreePath link = getCurrentPath();
+		while(nonNull(link)) {
+			Tree tree = link.getLeaf();
+			TreePath next = null;
+			switch (tree.getKind()) {
+				case METHOD_INVOCATION:
+					MethodInvocationTree invocation = (MethodInvocationTree) tree;
+					if(!invocation.getArguments().isEmpty()) {
+						deferred.add(link);
+					}
+					next = child(link, invocation.getMethodSelect());
+					break;
+				case ARRAY_ACCESS:
+					deferred.add(link);
+					next = child(link, ((ArrayAccessTree) tree).getExpression());
+					break;
+				case MEMBER_SELECT:
+					next = child(link, ((MemberSelectTree) tree).getExpression());
+					if(!decided) {
+						result = decide(link, next);
+						decided = nonNull(result);
+					}
+					break;
+				default:
+					Boolean end = scan(link, decided ? FALSE : TRUE);
+					if(!decided) {
+						result = end;
+					}
+			}
+			link = next;
+		}
+		while(deferred.size() > mark) {
+			TreePath parent = deferred.remove(deferred.size() - 1);
+			Tree tree = parent.getLeaf();
+			if(tree.getKind() == METHOD_INVOCATION) {
+				for(Tree argument : ((MethodInvocationTree) tree).getArguments()) {
+					scan(child(parent, argument), false);
+				}
+			} else {
+				scan(child(parent, ((ArrayAccessTree) tree).getIndex()), false);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decide about a chain link selecting a member of the expression.
+	 *
+	 * @return TRUE if the chain is unterminated sentence, FALSE if it's not, or null if it's still not decided.
+	 */
+	private Boolean decide(TreePath select, TreePath expression) {
+		Element member = element(select);
+		if(utils().isStart(member, diagnosis)) {
+			return TRUE;
+		}
+		if(utils().isEnd(member) || member.getModifiers().contains(STATIC)) {
+			return FALSE;
+		}
+		if(!isThis((ExpressionTree) expression.getLeaf()) && utils().requiresEnd(type(expression), diagnosis)) {
+			return TRUE;
+		}
+		return null;
+	}
+
+	private TreePath child(TreePath parent, Tree tree) {
+		visited(tree);
+		return new TreePath(parent, tree);
+	}
+
+	@Override
+	public Boolean visitConditionalExpression(ConditionalExpressionTree tree, Boolean needed) {
+		if(!TRUE.equals(needed)) {
+			return super.visitConditionalExpression(tree, false);
+		}
+		scan(tree.getCondition(), false);
+		if(TRUE.equals(scan(tree.getTrueExpression(), true))) {
+			return decided(TRUE, tree.getFalseExpression());
+		}
+		return TRUE.equals(scan(tree.getFalseExpression(), true));
+	}
+
+	@Override
+	public Boolean visitAssignment(AssignmentTree tree, Boolean needed) {
+		super.visitAssignment(tree, false);
+		return null;
+	}
+
+	@Override
+	public Boolean visitNewArray(NewArrayTree tree, Boolean needed) {
+		super.visitNewArray(tree, false);
+		return null;
+	}
+
+	/**
+	 * Creation of the annotation utilities (including loading of external end methods) is timed separately, so that
+	 * it's not attributed to the compilation unit, which happened to need them first.
+	 */
+	private AnnotationUtils utils() {
+		if(isNull(annotationUtils)) {
+			long start = System.nanoTime();
+			annotationUtils = annotationUtilsFactory.get();
+			initTime = System.nanoTime() - start;
+			statistics.initTime += initTime;
+		}
+		return annotationUtils;
+	}
+
+	private Element element(Tree tree) {
+		return element(path(tree));
+	}
+
+	private TypeMirror type(Tree tree) {
+		return type(path(tree));
+	}
+
+	private Element element(TreePath path) {
+		statistics.resolutions++;
+		return trees.getElement(path);
+	}
+
+	private TypeMirror type(TreePath path) {
+		statistics.resolutions++;
+		return trees.getTypeMirror(path);
+	}
+
+	/**
+	 * Path of the currently visited tree, or of it's direct child. Symbols and types are attributed directly on the
+	 * tree nodes, so there is no need to search the path from the root of the compilation unit.
+	 */
+	private TreePath path(Tree tree) {
+		TreePath path = getCurrentPath();
+		return path.getLeaf() == tree ? path : new TreePath(path, tree);
+	}
+
+	private static TypeMirror typeOf(Element element) {
+		return element.accept(TYPE_OF, null);
+	}
+
+	/**
+	 * Names are unique within the compiler's name table, so comparing them doesn't need to render the expression.
+	 */
+	private boolean isThis(ExpressionTree tree) {
+		return tree.getKind() == IDENTIFIER && thisName.equals(((IdentifierTree) tree).getName());
+	}
+
+	/**
+	 * Explicit constructor invocation super(...) or this(...) can't be a fluent sentence (constructors can't be
+	 * annotated with @Start), so it's not worth scanning. That e.g. avoids any work on default constructors.
+	 */
+	private boolean isConstructorCall(ExpressionTree expression) {
+		if(expression.getKind() != METHOD_INVOCATION) {
+			return false;
+		}
+		ExpressionTree method = ((MethodInvocationTree) expression).getMethodSelect();
+		if(method.getKind() != IDENTIFIER) {
+			return false;
+		}
+		Name name = ((IdentifierTree) method).getName();
+		return superName.equals(name) || thisName.equals(name);
+	}
+
+	/**
+	 * Lambda or method reference needs to be checked, if the target functional interface has a void abstract method.
+	 */
+	private boolean isVoidLambda() {
+		Element target = types.asElement(type(getCurrentPath()));
+		return nonNull(target) && hasVoidDescriptor(target);
+	}
+
+	/**
+	 * Void can't be a type argument, so the result depends only on the interface, not on its parameterization, and it
+	 * is resolved only once per interface, including abstract methods inherited from superinterfaces, unless they are
+	 * overridden by a default method.
+	 */
+	private boolean hasVoidDescriptor(Element type) {
+		Boolean result = voidDescriptors.get(type);
+		if(isNull(result)) {
+			result = resolveVoidDescriptor(type);
+			voidDescriptors.put(type, result);
+		}
+		return result;
+	}
+
+	private boolean resolveVoidDescriptor(Element type) {
+		if(!(type instanceof TypeElement)) {
+			return false;
+		}
+		List<? extends Element> members = elements.getAllMembers((TypeElement) type);
+		for(Element member : members) {
+			if(member.getKind() == METHOD && member.getModifiers().contains(ABSTRACT) && ((ExecutableElement) member).getReturnType().getKind() == VOID
+					&& !isOverridden((ExecutableElement) member, members, (TypeElement) type)) {
+				return true;
+			}
 		}
-		return tree.getQualifierExpression().accept(this, null);
+		return false;
 	}
 
-	private void scan(Tree tree) {
-		String[] errorMessage = new String[1];
-		if(TRUE.equals(unterminatedSentenceScanner.scan(getCurrentPath(), errorMessage))) {
-			trees.printMessage(ERROR, errorMessage[0], tree, getCurrentPath().getCompilationUnit());
+	private boolean isOverridden(ExecutableElement method, List<? extends Element> members, TypeElement type) {
+		for(Element member : members) {
+			if(member.getKind() == METHOD && !member.getModifiers().contains(ABSTRACT) && elements.overrides((ExecutableElement) member, method, type)) {
+				return true;
+			}
 		}
+		return false;
 	}
 
-	private boolean isVoidLambda(Tree tree) {
-		ExecutableElementTest<Void> test = new ExecutableElementTest<>((e, o) -> !e.isDefault() && !e.getModifiers().contains(STATIC) && "void".equals(e.getReturnType().toString()));
-		return types.asElement(trees.getTypeMirror(trees.getPath(getCurrentPath().getCompilationUnit(), tree))).getEnclosedElements().stream().anyMatch(m -> m.accept(test, null));
+	/**
+	 * Classes of a compilation unit are analyzed separately, so time spent in all of them is summed, and the budget
+	 * applies to the whole unit.
+	 */
+	private static final class ScannedUnit {
+		private long time;
+		private boolean overBudget;
+		private boolean whole;
 	}
 
 }
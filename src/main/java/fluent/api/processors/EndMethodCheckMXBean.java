@@ -0,0 +1,106 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+/**
+ * Management interface of the end method check, exposing metrics cumulated over all compilations in the running JVM
+ * (e.g. build daemon or IDE), which enabled it using processor option {@link EndProcessor#JMX}.
+ *
+ * It is registered in the platform MBean server under name {@code fluent.api:type=EndMethodCheck}.
+ */
+public interface EndMethodCheckMXBean {
+
+	/**
+	 * @return Number of compilations (processor initializations), which published the metrics.
+	 */
+	long getCompilations();
+
+	/**
+	 * @return Number of scanned compilation units.
+	 */
+	long getCompilationUnits();
+
+	/**
+	 * @return Number of visited expression statements.
+	 */
+	long getStatements();
+
+	/**
+	 * @return Total time in milliseconds spent in scanning of compilation units.
+	 */
+	double getScanTimeMillis();
+
+	/**
+	 * @return Number of hits of the end methods caches.
+	 */
+	long getCacheHits();
+
+	/**
+	 * @return Number of misses of the end methods caches.
+	 */
+	long getCacheMisses();
+
+	/**
+	 * @return Ratio of the cache hits to all cache lookups, or 0 if there was no lookup yet.
+	 */
+	double getCacheHitRatio();
+
+	/**
+	 * @return Number of entries held by end methods caches of processors, which were not garbage collected yet. Only
+	 *         caches of processors loaded by the class loader, which registered the metrics last, are counted.
+	 */
+	long getCacheSize();
+
+	/**
+	 * @return Number of type hierarchy walks done to resolve end methods.
+	 */
+	long getHierarchyWalks();
+
+	/**
+	 * @return Number of end method tables of class path types reused from previous compilations in the JVM.
+	 */
+	long getSharedTables();
+
+	/**
+	 * @return Number of loaded external end method entries.
+	 */
+	long getExternalEntries();
+
+	/**
+	 * @return Total time in milliseconds spent in loading of external end method files.
+	 */
+	double getExternalFileLoadTimeMillis();
+
+	/**
+	 * Reset all cumulated metrics to zero. Size of the live caches is not affected.
+	 */
+	void reset();
+
+}
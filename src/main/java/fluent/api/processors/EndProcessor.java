@@ -37,40 +37,149 @@ import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import javax.management.JMException;
+import javax.management.modelmbean.InvalidTargetObjectTypeException;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager.Location;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.Map;
 import java.util.HashSet;
 import java.util.Enumeration;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
+import static fluent.api.processors.Metrics.METRICS;
+import static fluent.api.processors.StatisticsReport.isCompilationEndReported;
+import static fluent.api.processors.Tracing.Phase.EXTERNAL_FILE_LOADING;
+import static fluent.api.processors.Tracing.TRACING;
 import static java.lang.ClassLoader.getSystemResources;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.joining;
 import static javax.lang.model.element.ElementKind.METHOD;
 import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.NOTE;
 import static javax.tools.Diagnostic.Kind.WARNING;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
 import static javax.tools.StandardLocation.SOURCE_OUTPUT;
 
 /**
  * Pseudo annotation processor of special annotation @End marking terminal methods in fluent API. It actually doesn't do
  * any annotation processing, only hooks on the compiler, and checks missing terminal methods in expression statements.
+ *
+ * It declares support of all annotation types (without claiming any of them), so that javac invokes it in every round,
+ * and therefore also recognizes its options.
  */
-@SupportedAnnotationTypes("fluent.api.EndMethodCheckFile")
+@SupportedAnnotationTypes("*")
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
+@SupportedOptions({EndProcessor.STATISTICS, EndProcessor.SLOWEST_UNITS, EndProcessor.UNIT_BUDGET, EndProcessor.JMX, EndProcessor.PREFILTER, EndProcessor.IGNORE,
+		EndProcessor.SKIP_GENERATED, EndProcessor.GENERATED_ANNOTATIONS, EndProcessor.GENERATED_DIRECTORIES,
+		EndProcessor.INCLUDE, EndProcessor.EXCLUDE, EndProcessor.LIBRARY_PACKAGES, EndProcessor.SHARED_TABLES})
 public class EndProcessor extends AbstractProcessor {
 
+	/**
+	 * Processor option enabling summary of the work done by the check, printed at the end of compilation.
+	 */
+	public static final String STATISTICS = "fluent.api.stats";
+
+	/**
+	 * Processor option specifying number of the slowest compilation units, which are printed at the end of compilation.
+	 */
+	public static final String SLOWEST_UNITS = "fluent.api.slowest";
+
+	/**
+	 * Processor option specifying time budget in (possibly fractional) milliseconds for check of one compilation unit. Warning is reported
+	 * for every compilation unit, which check takes longer.
+	 */
+	public static final String UNIT_BUDGET = "fluent.api.unitBudget";
+
+	/**
+	 * Processor option enabling metrics of the check cumulated over all compilations in the running JVM, exposed via
+	 * JMX as {@link EndMethodCheckMXBean}. Useful for compilers running in long living build daemons or IDE.
+	 */
+	public static final String JMX = "fluent.api.jmx";
+
+	/**
+	 * Processor option enabling cheap pre-filter, which skips compilation units not referencing any known DSL type or
+	 * method by name. See {@link NameFilter} for names, that are known.
+	 */
+	public static final String PREFILTER = "fluent.api.prefilter";
+
+	/**
+	 * Processor option bypassing the check of the whole compiled module, like if all it's packages were annotated with
+	 * {@link fluent.api.IgnoreMissingEndMethod}. The compiled sources are not traversed at all.
+	 */
+	public static final String IGNORE = "fluent.api.ignoreMissingEndMethod";
+
+	/**
+	 * Processor option enabling skipping of generated compilation units. See {@link #GENERATED_ANNOTATIONS} and
+	 * {@link #GENERATED_DIRECTORIES} for what is considered generated.
+	 */
+	public static final String SKIP_GENERATED = "fluent.api.skipGenerated";
+
+	/**
+	 * Processor option specifying comma separated qualified names of annotations marking generated types. By default
+	 * javax.annotation.Generated, javax.annotation.processing.Generated and jakarta.annotation.Generated.
+	 */
+	public static final String GENERATED_ANNOTATIONS = "fluent.api.generatedAnnotations";
+
+	/**
+	 * Processor option specifying comma separated directories with generated sources. The annotation processing
+	 * generated sources output (javac -s) is always considered generated, if it's different from the class output.
+	 */
+	public static final String GENERATED_DIRECTORIES = "fluent.api.generatedDirectories";
+
+	/**
+	 * Processor option specifying comma separated patterns of packages to be checked, e.g. com.acme.dsl.** (see
+	 * {@link PackageFilter} for the pattern syntax). By default all packages are checked.
+	 */
+	public static final String INCLUDE = "fluent.api.include";
+
+	/**
+	 * Processor option specifying comma separated patterns of packages not to be checked, e.g. com.acme.legacy.**.
+	 */
+	public static final String EXCLUDE = "fluent.api.exclude";
+
+	/**
+	 * Processor option specifying comma separated patterns of packages of libraries, which don't declare any end
+	 * methods, e.g. com.google.common.**. Types of these packages (as well as of platform packages) are not searched
+	 * for end methods, unless they inherit from a type listed in external end method files.
+	 */
+	public static final String LIBRARY_PACKAGES = "fluent.api.libraryPackages";
+
+	/**
+	 * Processor option enabling sharing of end method tables of class path types with other compilations in the same
+	 * JVM (see {@link SharedEndMethods}).
+	 */
+	public static final String SHARED_TABLES = "fluent.api.sharedTables";
+
 	private static final String EXTERNAL_END_METHOD_FILE = "fluent-api-check-methods.txt";
 
+	private Statistics statistics;
+	private JavacTask task;
+	private RunManifestWriter runManifestWriter;
+	private List<TypeElement> sourceTypes;
+	private List<Path> generatedDirectories;
+	private ConcurrentMap<Object, Object> sharedTables;
+
 	/**
 	 *  With the introduction of IntelliJ Idea 2020.3 release the ProcessingEnvironment
 	 *  is not of type com.sun.tools.javac.processing.JavacProcessingEnvironment
@@ -100,18 +209,152 @@ public class EndProcessor extends AbstractProcessor {
 		return env;
 	}
 
+	/**
+	 * Initialization only registers the plugins to the compiler. Creation of the scanners, and loading of external
+	 * end methods is deferred until they are really needed, so that compilations without any candidate expressions
+	 * don't pay for it.
+	 */
 	@Override
 	public synchronized void init(ProcessingEnvironment processingEnv) {
 		super.init(processingEnv);
 		ProcessingEnvironment env = unwrap(processingEnv);
+		boolean summary = Boolean.parseBoolean(processingEnv.getOptions().get(STATISTICS));
+		int slowestUnits = (int) numericOption(SLOWEST_UNITS);
+		statistics = new Statistics(slowestUnits);
+		long unitBudget = (long) (numericOption(UNIT_BUDGET) * 1e6);
+		Map<String, Set<String>> externalEndMethods = new ConcurrentHashMap<>();
+		Map<Element, Set<Element>> endMethodsCache = new ConcurrentHashMap<>();
+		if(Boolean.parseBoolean(processingEnv.getOptions().get(SKIP_GENERATED))) {
+			generatedDirectories = generatedDirectories();
+		}
+		if(Boolean.parseBoolean(processingEnv.getOptions().get(PREFILTER))) {
+			sourceTypes = new ArrayList<>();
+		}
+		validatePatterns(INCLUDE, EXCLUDE, LIBRARY_PACKAGES);
+		if(Boolean.parseBoolean(processingEnv.getOptions().get(SHARED_TABLES))) {
+			try {
+				sharedTables = SharedEndMethods.jvmTables();
+			} catch (JMException | InvalidTargetObjectTypeException | RuntimeException e) {
+				processingEnv.getMessager().printMessage(WARNING, "End method tables are not shared: " + e);
+			}
+		}
+		task = JavacTask.instance(env);
+		if(!Boolean.parseBoolean(processingEnv.getOptions().get(IGNORE))) {
+			task.addTaskListener(new DeferredAnalyzeListener(() -> createScanner(env, externalEndMethods, endMethodsCache, unitBudget)));
+		}
+		if(Boolean.parseBoolean(processingEnv.getOptions().get(JMX))) {
+			try {
+				METRICS.compilationStarted(endMethodsCache);
+				task.addTaskListener(new MetricsPublisher(statistics, METRICS));
+			} catch (JMException | RuntimeException e) {
+				processingEnv.getMessager().printMessage(WARNING, "Metrics of @End method check not available via JMX: " + e);
+			}
+		}
+		if(summary || slowestUnits > 0) {
+			if(isCompilationEndReported()) {
+				task.addTaskListener(new StatisticsReport(statistics, processingEnv.getMessager(), summary, slowestUnits > 0));
+			} else {
+				if(summary) {
+					noteIgnoredOption(STATISTICS);
+				}
+				if(slowestUnits > 0) {
+					noteIgnoredOption(SLOWEST_UNITS);
+				}
+			}
+		}
+	}
+
+	private void noteIgnoredOption(String name) {
+		processingEnv.getMessager().printMessage(NOTE, "Option " + name + " is ignored: End of compilation is reported only by javac 9 and newer.");
+	}
+
+	private DslScanner createScanner(ProcessingEnvironment env, Map<String, Set<String>> externalEndMethods, Map<Element, Set<Element>> endMethodsCache, long unitBudget) {
 		Trees trees = Trees.instance(env);
 		Types types = env.getTypeUtils();
-		DslScanner endScanner = new DslScanner(new UnterminatedSentenceScanner(new AnnotationUtils(loadEndMethodsFromFiles(), types), trees), trees, types);
-		JavacTask.instance(env).addTaskListener(endScanner);
+		Elements elements = env.getElementUtils();
+		Function<AnnotationUtils, NameFilter> nameFilterFactory = isNull(sourceTypes) ? null : utils -> NameFilter.of(sourceTypes, externalEndMethods, utils, trees);
+		GeneratedSources generatedSources = isNull(generatedDirectories) ? null : new GeneratedSources(listOption(GENERATED_ANNOTATIONS, GeneratedSources.DEFAULT_ANNOTATIONS), generatedDirectories, elements, trees);
+		List<String> include = patternOption(INCLUDE);
+		List<String> exclude = patternOption(EXCLUDE);
+		PackageFilter packageFilter = include.isEmpty() && exclude.isEmpty() ? null : new PackageFilter(include, exclude);
+		List<String> libraryPackages = patternOption(LIBRARY_PACKAGES);
+		return new DslScanner(() -> {
+			loadEndMethodsFromFiles(externalEndMethods);
+			SharedEndMethods shared = isNull(sharedTables) ? null : new SharedEndMethods(sharedTables, externalEndMethods, libraryPackages, env.getFiler(), trees, elements);
+			return new AnnotationUtils(externalEndMethods, endMethodsCache, libraryPackages, shared, types, elements, statistics);
+		}, nameFilterFactory, generatedSources, packageFilter, trees, types, elements, statistics, unitBudget);
+	}
+
+	private List<Path> generatedDirectories() {
+		List<Path> directories = new ArrayList<>();
+		listOption(GENERATED_DIRECTORIES, "").forEach(directory -> directories.add(Paths.get(directory).toAbsolutePath().normalize()));
+		Path sourceOutput = outputDirectory(SOURCE_OUTPUT);
+		if(nonNull(sourceOutput) && !sourceOutput.equals(outputDirectory(CLASS_OUTPUT))) {
+			directories.add(sourceOutput);
+		}
+		return directories;
+	}
+
+	/**
+	 * Directory of the output location, resolved using the filer without creating any file.
+	 *
+	 * @return Absolute path of the directory, or null, if the location is not in the file system.
+	 */
+	private Path outputDirectory(Location location) {
+		try {
+			return Paths.get(processingEnv.getFiler().getResource(location, "", EXTERNAL_END_METHOD_FILE).toUri()).toAbsolutePath().normalize().getParent();
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private List<String> listOption(String name, String defaultValue) {
+		List<String> values = new ArrayList<>();
+		for(String value : processingEnv.getOptions().getOrDefault(name, defaultValue).split(",")) {
+			if(!value.trim().isEmpty()) {
+				values.add(value.trim());
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Package patterns are validated eagerly, because a typo could silently turn the check off for all packages.
+	 */
+	private void validatePatterns(String... options) {
+		for(String option : options) {
+			listOption(option, "").stream().filter(pattern -> !PackageFilter.isValid(pattern)).forEach(pattern -> processingEnv.getMessager().printMessage(ERROR,
+					"Invalid package pattern " + pattern + " in option " + option + ": ** is allowed only as the last segment!"));
+		}
+	}
+
+	/**
+	 * Invalid patterns are reported as errors already during initialization, so they are left out.
+	 */
+	private List<String> patternOption(String name) {
+		List<String> patterns = listOption(name, "");
+		patterns.removeIf(pattern -> !PackageFilter.isValid(pattern));
+		return patterns;
+	}
+
+	private double numericOption(String name) {
+		String value = processingEnv.getOptions().get(name);
+		try {
+			return isNull(value) ? 0 : Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			processingEnv.getMessager().printMessage(WARNING, "Ignored option " + name + "=" + value + ": Not a number!");
+			return 0;
+		}
 	}
 
 	@Override
 	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if(nonNull(sourceTypes)) {
+			roundEnv.getRootElements().stream().filter(TypeElement.class::isInstance).forEach(element -> sourceTypes.add((TypeElement) element));
+		}
+		if(annotations.stream().noneMatch(annotation -> annotation.getQualifiedName().contentEquals(EndMethodCheckFile.class.getName()))) {
+			return false;
+		}
 		roundEnv.getElementsAnnotatedWith(EndMethodCheckFile.class).forEach(element -> {
 			EndMethodCheckFile checkFile = element.getAnnotation(EndMethodCheckFile.class);
 			try(Writer writer = processingEnv.getFiler().createResource(SOURCE_OUTPUT, "", checkFile.uniqueFileName()).openWriter()) {
@@ -119,23 +362,54 @@ public class EndProcessor extends AbstractProcessor {
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
+			if(checkFile.manifest()) {
+				writeRunManifest(checkFile.uniqueFileName() + RunManifest.SUFFIX);
+			}
 		});
 		return false;
 	}
 
-	private Map<String, Set<String>> loadEndMethodsFromFiles() {
-		Map<String, Set<String>> map = new ConcurrentHashMap<>();
+	/**
+	 * The manifest is created using the filer, so that it's tracked by the compiler, but completed with the statistics
+	 * only at the end of compilation, when the filer can't be used anymore.
+	 */
+	private void writeRunManifest(String fileName) {
+		try {
+			FileObject manifest = processingEnv.getFiler().createResource(SOURCE_OUTPUT, "", fileName);
+			try(Writer writer = manifest.openWriter()) {
+				RunManifest.write(writer, statistics, false);
+			}
+			if(!isCompilationEndReported()) {
+				processingEnv.getMessager().printMessage(NOTE, "Run manifest " + fileName + " is not completed with statistics: End of compilation is reported only by javac 9 and newer.");
+				return;
+			}
+			if(isNull(runManifestWriter)) {
+				runManifestWriter = new RunManifestWriter(statistics, processingEnv.getMessager());
+				task.addTaskListener(runManifestWriter);
+			}
+			runManifestWriter.add(Paths.get(manifest.toUri()));
+		} catch (IOException | RuntimeException e) {
+			processingEnv.getMessager().printMessage(WARNING, "Unable to write run manifest " + fileName + ": " + e);
+		}
+	}
+
+	private Map<String, Set<String>> loadEndMethodsFromFiles(Map<String, Set<String>> map) {
+		long start = System.nanoTime();
 		try {
 			Enumeration<URL> endingMethodResources = getSystemResources(EXTERNAL_END_METHOD_FILE);
 			while(endingMethodResources.hasMoreElements()) {
 				URL url = endingMethodResources.nextElement();
+				Object event = TRACING.begin(EXTERNAL_FILE_LOADING);
 				try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
 					reader.lines().forEach(line -> addExternalEndingMethod(line, map, url));
+				} finally {
+					TRACING.end(event, url);
 				}
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		statistics.externalLoadTime += System.nanoTime() - start;
 		return map;
 	}
 
@@ -148,6 +422,8 @@ public class EndProcessor extends AbstractProcessor {
 				method -> map.computeIfAbsent(type.toString(), key -> new HashSet<>()).add(method)
 		).count() == 0) {
 			warning(line, url, "Method not found. Candidates are: " + methodsOf(type).collect(joining(", ")));
+		} else {
+			statistics.externalEntries++;
 		}
 	}
 
@@ -166,10 +442,29 @@ public class EndProcessor extends AbstractProcessor {
 	 * @throws IOException in case of any unexpected IO problems while accessing the file (not that it doesn't exist).
 	 */
 	public static void assertThatEndMethodCheckFileExists(String uniqueFileName) throws IOException {
+		uniqueResource(uniqueFileName, "End method check uniqueFileName named: " + uniqueFileName + " doesn't exist.\n" +
+				"Either you didn't use anywhere the annotation @EndMethodCheckFile(\"" + uniqueFileName + "\")\n");
+	}
+
+	/**
+	 * Assertion method to check, that requested run manifest of the check got created, and to read it.
+	 * @param uniqueFileName Unique file name, which should have been previously requested to generate using the
+	 *                       annotation EndMethodCheckFile(uniqueFileName, manifest = true)
+	 * @return Manifest of the check run.
+	 * @throws IOException in case of any unexpected IO problems while reading the manifest (not that it doesn't exist).
+	 */
+	public static RunManifest assertThatRunManifestExists(String uniqueFileName) throws IOException {
+		URL url = uniqueResource(uniqueFileName + RunManifest.SUFFIX, "Run manifest of end method check file: " + uniqueFileName + " doesn't exist.\n" +
+				"Either you didn't use anywhere the annotation @EndMethodCheckFile(uniqueFileName = \"" + uniqueFileName + "\", manifest = true)\n");
+		try(Reader reader = new InputStreamReader(url.openStream(), ISO_8859_1)) {
+			return RunManifest.read(reader);
+		}
+	}
+
+	private static URL uniqueResource(String uniqueFileName, String missingMessage) throws IOException {
 		Enumeration<URL> resources = ClassLoader.getSystemResources(uniqueFileName);
 		if(!resources.hasMoreElements()) {
-			throw new AssertionError("End method check uniqueFileName named: " + uniqueFileName + " doesn't exist.\n" +
-					"Either you didn't use anywhere the annotation @EndMethodCheckFile(\"" + uniqueFileName + "\")\n" +
+			throw new AssertionError(missingMessage +
 					"or the annotation processor wasn't invoked by the compiler and you have to check it's configuration.\n" +
 					"For more about annotation processor configuration and possible issues see:\n" +
 					"https://github.com/c0stra/fluent-api-end-check");
@@ -181,6 +476,7 @@ public class EndProcessor extends AbstractProcessor {
 					"Files found:\n" +
 					url + "\n" + resources.nextElement());
 		}
+		return url;
 	}
 
 }
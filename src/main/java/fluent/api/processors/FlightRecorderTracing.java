@@ -0,0 +1,110 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import jdk.jfr.*;
+
+/**
+ * Tracing of the check phases using Java Flight Recorder events. This class must be loaded only via {@link Tracing},
+ * which checks, that JFR API is available in the running JVM.
+ */
+final class FlightRecorderTracing extends Tracing {
+
+	@Name("fluent.api.ExternalFileLoading")
+	@Label("External End Methods File Loading")
+	@Category({"Java Compiler", "Fluent API End Check"})
+	@Description("Loading of end methods listed in file fluent-api-check-methods.txt.")
+	static final class ExternalFileLoading extends Event {
+		@Label("File")
+		String name;
+	}
+
+	@Name("fluent.api.CompilationUnitScanning")
+	@Label("Compilation Unit Scanning")
+	@Category({"Java Compiler", "Fluent API End Check"})
+	@Description("Scanning of compilation unit for missing end methods.")
+	static final class CompilationUnitScanning extends Event {
+		@Label("Compilation Unit")
+		String name;
+	}
+
+	@Name("fluent.api.EndMethodsResolution")
+	@Label("End Methods Resolution")
+	@Category({"Java Compiler", "Fluent API End Check"})
+	@Description("Resolution of end methods of a type and its supertypes.")
+	static final class EndMethodsResolution extends Event {
+		@Label("Type")
+		String name;
+	}
+
+	private final EventType externalFileLoading = EventType.getEventType(ExternalFileLoading.class);
+	private final EventType compilationUnitScanning = EventType.getEventType(CompilationUnitScanning.class);
+	private final EventType endMethodsResolution = EventType.getEventType(EndMethodsResolution.class);
+
+	@Override
+	Object begin(Phase phase) {
+		Event event = create(phase);
+		if(event != null) {
+			event.begin();
+		}
+		return event;
+	}
+
+	private Event create(Phase phase) {
+		switch (phase) {
+			case EXTERNAL_FILE_LOADING:
+				return externalFileLoading.isEnabled() ? new ExternalFileLoading() : null;
+			case COMPILATION_UNIT_SCANNING:
+				return compilationUnitScanning.isEnabled() ? new CompilationUnitScanning() : null;
+			default:
+				return endMethodsResolution.isEnabled() ? new EndMethodsResolution() : null;
+		}
+	}
+
+	@Override
+	void end(Object event, Object subject) {
+		if(event == null) {
+			return;
+		}
+		Event started = (Event) event;
+		started.end();
+		if(started.shouldCommit()) {
+			if(started instanceof ExternalFileLoading) {
+				((ExternalFileLoading) started).name = String.valueOf(subject);
+			} else if(started instanceof CompilationUnitScanning) {
+				((CompilationUnitScanning) started).name = String.valueOf(subject);
+			} else {
+				((EndMethodsResolution) started).name = String.valueOf(subject);
+			}
+			started.commit();
+		}
+	}
+
+}
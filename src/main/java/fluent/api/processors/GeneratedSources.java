@@ -0,0 +1,116 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static fluent.api.processors.AnnotationUtils.annotation;
+import static java.util.Objects.nonNull;
+
+/**
+ * Recognition of generated compilation units, which are not worth checking, because generated code (e.g. protobuf,
+ * jOOQ or OpenAPI) doesn't use fluent DSLs, but may be huge.
+ *
+ * Compilation unit is generated, if any of it's top level types is annotated with one of the generated annotations,
+ * or if it's located in one of the generated sources directories.
+ */
+final class GeneratedSources {
+
+	static final String DEFAULT_ANNOTATIONS = "javax.annotation.Generated,javax.annotation.processing.Generated,jakarta.annotation.Generated";
+
+	private final List<TypeElement> annotations = new ArrayList<>();
+	private final List<Path> directories;
+	private final Trees trees;
+
+	/**
+	 * @param annotationNames Qualified names of the generated annotations. Annotations, which are not available in the
+	 *                        compilation, are ignored.
+	 * @param directories     Absolute paths of the generated sources directories.
+	 */
+	GeneratedSources(Collection<String> annotationNames, List<Path> directories, Elements elements, Trees trees) {
+		for(String name : annotationNames) {
+			TypeElement annotation = elements.getTypeElement(name);
+			if(nonNull(annotation)) {
+				annotations.add(annotation);
+			}
+		}
+		this.directories = directories;
+		this.trees = trees;
+	}
+
+	boolean isGenerated(CompilationUnitTree unit) {
+		return isInDirectory(unit.getSourceFile().toUri()) || isAnnotated(unit);
+	}
+
+	private boolean isInDirectory(URI uri) {
+		if(directories.isEmpty() || !"file".equals(uri.getScheme())) {
+			return false;
+		}
+		Path path = Paths.get(uri);
+		for(Path directory : directories) {
+			if(path.startsWith(directory)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isAnnotated(CompilationUnitTree unit) {
+		if(annotations.isEmpty()) {
+			return false;
+		}
+		TreePath unitPath = new TreePath(unit);
+		for(Tree declaration : unit.getTypeDecls()) {
+			Element type = trees.getElement(new TreePath(unitPath, declaration));
+			if(nonNull(type)) {
+				for(TypeElement annotation : annotations) {
+					if(nonNull(annotation(type, annotation))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+}
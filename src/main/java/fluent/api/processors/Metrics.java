@@ -0,0 +1,264 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanRegistration;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JVM wide metrics of the end method check, exposed via JMX. Statistics of running compilations are published to it
+ * incrementally (see {@link MetricsPublisher}), so the metrics are up to date also while long compilation is running.
+ */
+final class Metrics implements EndMethodCheckMXBean, MBeanRegistration {
+
+	static final String OBJECT_NAME = "fluent.api:type=EndMethodCheck";
+
+	static final Metrics METRICS = new Metrics();
+
+	private final LongAdder compilations = new LongAdder();
+	private final LongAdder compilationUnits = new LongAdder();
+	private final LongAdder statements = new LongAdder();
+	private final LongAdder scanTime = new LongAdder();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final LongAdder hierarchyWalks = new LongAdder();
+	private final LongAdder sharedTables = new LongAdder();
+	private final LongAdder externalEntries = new LongAdder();
+	private final LongAdder externalLoadTime = new LongAdder();
+	private final List<WeakReference<Map<?, ?>>> caches = new CopyOnWriteArrayList<>();
+
+	private final Map<String, LongAdder> counters = new LinkedHashMap<>();
+
+	private volatile boolean registered;
+
+	private Metrics() {
+		counters.put("Compilations", compilations);
+		counters.put("CompilationUnits", compilationUnits);
+		counters.put("Statements", statements);
+		counters.put("ScanTimeMillis", scanTime);
+		counters.put("CacheHits", cacheHits);
+		counters.put("CacheMisses", cacheMisses);
+		counters.put("HierarchyWalks", hierarchyWalks);
+		counters.put("SharedTables", sharedTables);
+		counters.put("ExternalEntries", externalEntries);
+		counters.put("ExternalFileLoadTimeMillis", externalLoadTime);
+	}
+
+	/**
+	 * Start tracking of a new compilation, and register the metrics in the platform MBean server, unless already done.
+	 * @param cache End methods cache of the compilation, which is tracked only until it's garbage collected.
+	 * @throws JMException if the registration failed.
+	 */
+	void compilationStarted(Map<?, ?> cache) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		synchronized(server) {
+			caches.removeIf(reference -> reference.get() == null);
+			caches.add(new WeakReference<>(cache));
+			compilations.increment();
+			register(server);
+		}
+	}
+
+	/**
+	 * Processors loaded by different class loaders (e.g. using -processorpath) have their own metrics. Metrics
+	 * registered by other class loader are taken over: their values are added to these metrics, and they are
+	 * unregistered, so that the server doesn't hold the other class loader anymore, and the values stay cumulative.
+	 * Metrics reset their counters, when they are unregistered, so that values handed over are not added again, when
+	 * their class loader takes the registration back.
+	 * Values are transferred only using JDK types (attributes of the registered MBean), and the platform MBean server
+	 * is used as a lock, as it's the only instance shared by all the class loaders.
+	 */
+	private void register(MBeanServer server) throws JMException {
+		if(registered) {
+			return;
+		}
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if(server.isRegistered(name)) {
+			for(Attribute attribute : server.getAttributes(name, counters.keySet().toArray(new String[0])).asList()) {
+				Number value = (Number) attribute.getValue();
+				counters.get(attribute.getName()).add(attribute.getName().endsWith("Millis") ? Math.round(value.doubleValue() * 1e6) : value.longValue());
+			}
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(this, name);
+	}
+
+	/**
+	 * Add counters collected since the last publishing, and remember the published values.
+	 */
+	void publish(Statistics current, Statistics published) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		synchronized(server) {
+			try {
+				register(server);
+			} catch (JMException e) {
+				// Values are kept, and the registration is retried with next publishing.
+			}
+			add(current, published);
+		}
+	}
+
+	private void add(Statistics current, Statistics published) {
+		compilationUnits.add(current.compilationUnits - published.compilationUnits);
+		statements.add(current.statements - published.statements);
+		scanTime.add(current.scanTime - published.scanTime);
+		cacheHits.add(current.cacheHits - published.cacheHits);
+		cacheMisses.add(current.cacheMisses - published.cacheMisses);
+		hierarchyWalks.add(current.hierarchyWalks - published.hierarchyWalks);
+		sharedTables.add(current.sharedTables - published.sharedTables);
+		externalEntries.add(current.externalEntries - published.externalEntries);
+		externalLoadTime.add(current.externalLoadTime - published.externalLoadTime);
+		published.compilationUnits = current.compilationUnits;
+		published.statements = current.statements;
+		published.scanTime = current.scanTime;
+		published.cacheHits = current.cacheHits;
+		published.cacheMisses = current.cacheMisses;
+		published.hierarchyWalks = current.hierarchyWalks;
+		published.sharedTables = current.sharedTables;
+		published.externalEntries = current.externalEntries;
+		published.externalLoadTime = current.externalLoadTime;
+	}
+
+	@Override
+	public long getCompilations() {
+		return compilations.sum();
+	}
+
+	@Override
+	public long getCompilationUnits() {
+		return compilationUnits.sum();
+	}
+
+	@Override
+	public long getStatements() {
+		return statements.sum();
+	}
+
+	@Override
+	public double getScanTimeMillis() {
+		return scanTime.sum() / 1e6;
+	}
+
+	@Override
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	@Override
+	public double getCacheHitRatio() {
+		long hits = cacheHits.sum();
+		long lookups = hits + cacheMisses.sum();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public long getCacheSize() {
+		caches.removeIf(reference -> reference.get() == null);
+		long size = 0;
+		for(WeakReference<Map<?, ?>> reference : caches) {
+			Map<?, ?> cache = reference.get();
+			if(cache != null) {
+				size += cache.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public long getHierarchyWalks() {
+		return hierarchyWalks.sum();
+	}
+
+	@Override
+	public long getSharedTables() {
+		return sharedTables.sum();
+	}
+
+	@Override
+	public long getExternalEntries() {
+		return externalEntries.sum();
+	}
+
+	@Override
+	public double getExternalFileLoadTimeMillis() {
+		return externalLoadTime.sum() / 1e6;
+	}
+
+	@Override
+	public void reset() {
+		compilations.reset();
+		compilationUnits.reset();
+		statements.reset();
+		scanTime.reset();
+		cacheHits.reset();
+		cacheMisses.reset();
+		hierarchyWalks.reset();
+		sharedTables.reset();
+		externalEntries.reset();
+		externalLoadTime.reset();
+	}
+
+	@Override
+	public ObjectName preRegister(MBeanServer server, ObjectName name) {
+		return name;
+	}
+
+	@Override
+	public void postRegister(Boolean registrationDone) {
+		registered = registrationDone;
+	}
+
+	@Override
+	public void preDeregister() {
+		// Nothing to do before deregistration.
+	}
+
+	@Override
+	public void postDeregister() {
+		registered = false;
+		counters.values().forEach(LongAdder::reset);
+	}
+
+}
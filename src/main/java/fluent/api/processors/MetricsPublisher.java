@@ -0,0 +1,65 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static fluent.api.processors.StatisticsReport.isCompilationFinished;
+
+/**
+ * Compiler plugin publishing statistics of the compilation to the JVM wide {@link Metrics} after every analyzed
+ * compilation unit. It needs to be registered after the {@link DslScanner}.
+ */
+class MetricsPublisher implements TaskListener {
+
+	private final Statistics statistics;
+	private final Metrics metrics;
+	private final Statistics published = new Statistics();
+
+	MetricsPublisher(Statistics statistics, Metrics metrics) {
+		this.statistics = statistics;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void started(TaskEvent taskEvent) {
+		// Nothing to do on task started event.
+	}
+
+	@Override
+	public void finished(TaskEvent taskEvent) {
+		if(taskEvent.getKind() == ANALYZE || isCompilationFinished(taskEvent)) {
+			metrics.publish(statistics, published);
+		}
+	}
+
+}
@@ -0,0 +1,236 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.Character.isJavaIdentifierPart;
+import static java.lang.Character.isJavaIdentifierStart;
+import static java.util.Objects.isNull;
+import static javax.lang.model.element.ElementKind.METHOD;
+
+/**
+ * Cheap filter of compilation units, which can't contain any candidate of the end method check, because they don't
+ * reference any DSL type or method at all.
+ *
+ * Names of DSL types (types with end methods), their methods, start methods and methods returning DSL types are
+ * collected from the compiled sources and from the external end method files, when the filter is created. Unit may
+ * contain a candidate, if any identifier in its source matches one of the names, or if it imports a DSL type.
+ * Identifiers are matched against a small bloom filter first, so most of them are rejected without creating a string,
+ * and no identifier is looked up as a symbol.
+ *
+ * Packages (or enclosing types) of the types listed in end method files are DSL scopes. Their other types are not
+ * known, but they are visible by simple name in units of the same package, or importing the scope on demand (e.g.
+ * import com.acme.dsl.*;), so such units may contain a candidate too. Listing of a whole package would complete all
+ * its types, and make javac compile implicitly those, which exist only as source files, so it's not done.
+ *
+ * The filter is a heuristic. Other DSL types from the class path, which are neither imported nor listed in end method
+ * files, are not recognized. Therefore it needs to be enabled explicitly.
+ */
+final class NameFilter {
+
+	private final Set<String> names;
+	private final Set<String> dslScopes;
+	private final long[] bloom;
+	private final int mask;
+	private final AnnotationUtils utils;
+	private final Trees trees;
+	private final Map<Element, Boolean> importedTypes = new HashMap<>();
+
+	private NameFilter(Set<String> names, Set<String> dslScopes, AnnotationUtils utils, Trees trees) {
+		this.names = names;
+		this.dslScopes = dslScopes;
+		int bits = Integer.highestOneBit(Math.max(64, names.size() * 16) - 1) << 1;
+		this.bloom = new long[bits >>> 6];
+		this.mask = bits - 1;
+		this.utils = utils;
+		this.trees = trees;
+		names.forEach(name -> add(name.hashCode()));
+	}
+
+	/**
+	 * @param sourceTypes Top level types of the compiled sources.
+	 * @param externalEndMethods External end methods (qualified type name to method signatures).
+	 */
+	static NameFilter of(Iterable<? extends TypeElement> sourceTypes, Map<String, Set<String>> externalEndMethods, AnnotationUtils utils, Trees trees) {
+		Set<String> names = new HashSet<>();
+		Set<String> dslScopes = new HashSet<>();
+		externalEndMethods.forEach((type, methods) -> {
+			int separator = type.lastIndexOf('.');
+			names.add(type.substring(separator + 1));
+			dslScopes.add(separator < 0 ? "" : type.substring(0, separator));
+			methods.forEach(method -> names.add(methodName(method)));
+		});
+		Diagnosis diagnosis = new Diagnosis();
+		sourceTypes.forEach(type -> collect(type, utils, names, diagnosis));
+		return new NameFilter(names, dslScopes, utils, trees);
+	}
+
+	private static void collect(Element type, AnnotationUtils utils, Set<String> names, Diagnosis diagnosis) {
+		boolean dsl = utils.requiresEnd(type.asType(), diagnosis);
+		if(dsl) {
+			names.add(type.getSimpleName().toString());
+		}
+		for(Element member : type.getEnclosedElements()) {
+			if(member.getKind().isClass() || member.getKind().isInterface()) {
+				collect(member, utils, names, diagnosis);
+			} else if(member.getKind() == METHOD && (dsl || utils.isStart(member, diagnosis) || utils.isEnd(member) || utils.requiresEnd(((ExecutableElement) member).getReturnType(), diagnosis))) {
+				names.add(member.getSimpleName().toString());
+			}
+		}
+	}
+
+	/**
+	 * Name of the method from it's signature, e.g. end from &lt;T&gt;end(T).
+	 */
+	private static String methodName(String signature) {
+		int start = signature.startsWith("<") ? signature.lastIndexOf('>', signature.indexOf('(')) + 1 : 0;
+		int end = signature.indexOf('(');
+		return signature.substring(start, end < 0 ? signature.length() : end);
+	}
+
+	/**
+	 * @return False if the unit surely doesn't reference any DSL, true if it may.
+	 */
+	boolean mayReference(CompilationUnitTree unit) {
+		CharSequence source;
+		try {
+			source = unit.getSourceFile().getCharContent(true);
+		} catch (IOException | RuntimeException e) {
+			return true;
+		}
+		return mayReference(source) || importsDsl(unit) || inDslScope(unit);
+	}
+
+	boolean mayReference(CharSequence source) {
+		int length = source.length();
+		for(int i = 0; i < length; i++) {
+			if(isJavaIdentifierStart(source.charAt(i))) {
+				int start = i;
+				int hash = 0;
+				for(char c; i < length && isJavaIdentifierPart(c = source.charAt(i)); i++) {
+					hash = 31 * hash + c;
+				}
+				if(contains(hash) && names.contains(source.subSequence(start, i).toString())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean importsDsl(CompilationUnitTree unit) {
+		TreePath unitPath = new TreePath(unit);
+		for(ImportTree declaration : unit.getImports()) {
+			Tree type = declaration.getQualifiedIdentifier();
+			if(declaration.isStatic() && type instanceof MemberSelectTree) {
+				type = ((MemberSelectTree) type).getExpression();
+			}
+			Element element = trees.getElement(new TreePath(new TreePath(unitPath, declaration), type));
+			if(element instanceof TypeElement && importedTypes.computeIfAbsent(element, this::isDsl)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return True if the unit belongs to a DSL scope, or imports one on demand.
+	 */
+	private boolean inDslScope(CompilationUnitTree unit) {
+		if(dslScopes.isEmpty()) {
+			return false;
+		}
+		if(dslScopes.contains(isNull(unit.getPackageName()) ? "" : unit.getPackageName().toString())) {
+			return true;
+		}
+		for(ImportTree declaration : unit.getImports()) {
+			Tree type = declaration.getQualifiedIdentifier();
+			if(!declaration.isStatic() && isOnDemand(type) && dslScopes.contains(((MemberSelectTree) type).getExpression().toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isOnDemand(Tree type) {
+		return type instanceof MemberSelectTree && ((MemberSelectTree) type).getIdentifier().contentEquals("*");
+	}
+
+	private boolean isDsl(Element type) {
+		Diagnosis diagnosis = new Diagnosis();
+		if(utils.requiresEnd(type.asType(), diagnosis)) {
+			return true;
+		}
+		for(Element member : type.getEnclosedElements()) {
+			if(member.getKind() == METHOD && utils.isStart(member, diagnosis)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void add(int hash) {
+		set(hash);
+		set(mix(hash));
+	}
+
+	private boolean contains(int hash) {
+		return isSet(hash) && isSet(mix(hash));
+	}
+
+	private void set(int hash) {
+		bloom[(hash & mask) >>> 6] |= 1L << hash;
+	}
+
+	private boolean isSet(int hash) {
+		return (bloom[(hash & mask) >>> 6] & 1L << hash) != 0;
+	}
+
+	private static int mix(int hash) {
+		int mixed = hash * 0x9E3779B9;
+		return mixed ^ mixed >>> 16;
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Filter of packages, which should be checked, given by include and exclude patterns. Package is checked, if it matches
+ * any include pattern (or there are none), and doesn't match any exclude pattern.
+ *
+ * Pattern is a package name, which may contain wildcard segments: * matches exactly one segment, and ** as the last
+ * segment matches any number of segments (including none), e.g. com.acme.dsl.** matches com.acme.dsl and all its
+ * sub-packages. ** in any other position is invalid. Patterns are compiled once into a trie of package name segments,
+ * so matching of a package doesn't depend on number of the patterns.
+ */
+final class PackageFilter {
+
+	private static final String ANY_SEGMENT = "*";
+	private static final String ANY_SEGMENTS = "**";
+
+	private final Node include;
+	private final Node exclude;
+
+	PackageFilter(List<String> include, List<String> exclude) {
+		this.include = include.isEmpty() ? null : trie(include);
+		this.exclude = exclude.isEmpty() ? null : trie(exclude);
+	}
+
+	boolean accepts(CharSequence packageName) {
+		String[] segments = segments(packageName.toString());
+		return (isNull(include) || include.matches(segments, 0)) && (isNull(exclude) || !exclude.matches(segments, 0));
+	}
+
+	/**
+	 * @return False if the pattern contains ** in other position than the last segment (it would match any package).
+	 */
+	static boolean isValid(String pattern) {
+		String[] segments = segments(pattern);
+		for(int i = 0; i < segments.length - 1; i++) {
+			if(ANY_SEGMENTS.equals(segments[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Node trie(List<String> patterns) {
+		Node root = new Node();
+		for(String pattern : patterns) {
+			if(!isValid(pattern)) {
+				throw new IllegalArgumentException("Invalid package pattern " + pattern + ": ** is allowed only as the last segment!");
+			}
+			Node node = root;
+			for(String segment : segments(pattern)) {
+				if(node.anySegments) {
+					break;
+				}
+				if(ANY_SEGMENTS.equals(segment)) {
+					node.anySegments = true;
+				} else if(ANY_SEGMENT.equals(segment)) {
+					node = isNull(node.anySegment) ? node.anySegment = new Node() : node.anySegment;
+				} else {
+					node = node.children.computeIfAbsent(segment, key -> new Node());
+				}
+			}
+			node.terminal = true;
+		}
+		return root;
+	}
+
+	private static String[] segments(String name) {
+		return name.isEmpty() ? new String[0] : name.split("\\.");
+	}
+
+	private static final class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private Node anySegment;
+		private boolean anySegments;
+		private boolean terminal;
+
+		private boolean matches(String[] segments, int index) {
+			if(anySegments) {
+				return true;
+			}
+			if(index == segments.length) {
+				return terminal;
+			}
+			Node child = children.get(segments[index]);
+			if(nonNull(child) && child.matches(segments, index + 1)) {
+				return true;
+			}
+			return nonNull(anySegment) && anySegment.matches(segments, index + 1);
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+
+import static java.util.Locale.ROOT;
+
+/**
+ * Machine readable manifest of one run of the end method check, written next to the file requested by annotation
+ * {@link fluent.api.EndMethodCheckFile} with {@code manifest = true}. It's a properties file with name of the check
+ * file extended by suffix {@code .properties}.
+ *
+ * Counters are written at the end of the compilation, which is reported only by javac 9 and newer. With Java 8
+ * compiler the manifest contains only version of the processor, and it's not {@link #isComplete() complete}.
+ */
+public final class RunManifest {
+
+	static final String SUFFIX = ".properties";
+
+	private static final String VERSION = "processor.version";
+	private static final String COMPLETE = "complete";
+	private static final String COMPILATION_UNITS = "compilation.units";
+	private static final String STATEMENTS = "statements";
+	private static final String VIOLATIONS = "violations";
+	private static final String SCAN_TIME = "scan.time.ms";
+	private static final String CACHE_HITS = "cache.hits";
+	private static final String CACHE_MISSES = "cache.misses";
+
+	private final Properties properties;
+
+	private RunManifest(Properties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Read the manifest.
+	 * @param reader Reader of the manifest content.
+	 * @return Parsed manifest.
+	 * @throws IOException in case of problems reading the manifest.
+	 */
+	public static RunManifest read(Reader reader) throws IOException {
+		Properties properties = new Properties();
+		properties.load(reader);
+		return new RunManifest(properties);
+	}
+
+	static void write(Writer writer, Statistics statistics, boolean complete) throws IOException {
+		writer.write(VERSION + "=" + processorVersion() + "\n");
+		writer.write(COMPLETE + "=" + complete + "\n");
+		if(complete) {
+			writer.write(COMPILATION_UNITS + "=" + statistics.compilationUnits + "\n");
+			writer.write(STATEMENTS + "=" + statistics.statements + "\n");
+			writer.write(VIOLATIONS + "=" + statistics.violations + "\n");
+			writer.write(SCAN_TIME + "=" + String.format(ROOT, "%.3f", statistics.scanTime / 1e6) + "\n");
+			writer.write(CACHE_HITS + "=" + statistics.cacheHits + "\n");
+			writer.write(CACHE_MISSES + "=" + statistics.cacheMisses + "\n");
+		}
+	}
+
+	private static String processorVersion() throws IOException {
+		Properties properties = new Properties();
+		try(InputStream stream = RunManifest.class.getResourceAsStream("version.properties")) {
+			if(stream != null) {
+				properties.load(stream);
+			}
+		}
+		return properties.getProperty("version", "unknown");
+	}
+
+	/**
+	 * @return Version of the processor, which performed the check.
+	 */
+	public String getProcessorVersion() {
+		return properties.getProperty(VERSION);
+	}
+
+	/**
+	 * @return True if the manifest contains counters of the whole compilation.
+	 */
+	public boolean isComplete() {
+		return Boolean.parseBoolean(properties.getProperty(COMPLETE));
+	}
+
+	/**
+	 * @return Number of compilation units scanned by the check.
+	 */
+	public long getCompilationUnits() {
+		return count(COMPILATION_UNITS);
+	}
+
+	/**
+	 * @return Number of expression statements checked.
+	 */
+	public long getStatements() {
+		return count(STATEMENTS);
+	}
+
+	/**
+	 * @return Number of reported missing end methods.
+	 */
+	public long getViolations() {
+		return count(VIOLATIONS);
+	}
+
+	/**
+	 * @return Total time in milliseconds spent in scanning.
+	 */
+	public double getScanTimeMillis() {
+		return Double.parseDouble(properties.getProperty(SCAN_TIME, "0"));
+	}
+
+	/**
+	 * @return Number of hits of the end methods cache.
+	 */
+	public long getCacheHits() {
+		return count(CACHE_HITS);
+	}
+
+	/**
+	 * @return Number of misses of the end methods cache.
+	 */
+	public long getCacheMisses() {
+		return count(CACHE_MISSES);
+	}
+
+	private long count(String key) {
+		return Long.parseLong(properties.getProperty(key, "0"));
+	}
+
+	@Override
+	public String toString() {
+		return properties.toString();
+	}
+
+}
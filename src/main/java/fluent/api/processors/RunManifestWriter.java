@@ -0,0 +1,84 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import javax.annotation.processing.Messager;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fluent.api.processors.StatisticsReport.isCompilationFinished;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+/**
+ * Compiler plugin completing requested run manifests with statistics of the check, when the whole compilation is
+ * finished.
+ */
+class RunManifestWriter implements TaskListener {
+
+	private final Statistics statistics;
+	private final Messager messager;
+	private final List<Path> manifests = new ArrayList<>();
+
+	RunManifestWriter(Statistics statistics, Messager messager) {
+		this.statistics = statistics;
+		this.messager = messager;
+	}
+
+	void add(Path manifest) {
+		manifests.add(manifest);
+	}
+
+	@Override
+	public void started(TaskEvent taskEvent) {
+		// Nothing to do on task started event.
+	}
+
+	@Override
+	public void finished(TaskEvent taskEvent) {
+		if(isCompilationFinished(taskEvent)) {
+			for(Path manifest : manifests) {
+				try(Writer writer = Files.newBufferedWriter(manifest, ISO_8859_1)) {
+					RunManifest.write(writer, statistics, true);
+				} catch (IOException e) {
+					messager.printMessage(WARNING, "Unable to write run manifest " + manifest + ": " + e);
+				}
+			}
+		}
+	}
+
+}
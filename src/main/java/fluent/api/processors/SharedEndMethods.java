@@ -0,0 +1,295 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.management.JMException;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.modelmbean.InvalidTargetObjectTypeException;
+import javax.management.modelmbean.ModelMBeanInfoSupport;
+import javax.management.modelmbean.ModelMBeanOperationInfo;
+import javax.management.modelmbean.RequiredModelMBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static javax.lang.model.element.ElementKind.METHOD;
+import static javax.tools.StandardLocation.CLASS_PATH;
+
+/**
+ * End method tables of class path types shared by all compilations in the JVM (e.g. all modules of a maven reactor,
+ * or all builds of a gradle daemon), so that every compilation doesn't resolve the same library DSL types again.
+ *
+ * Build tools load the processor in a new class loader for every compilation, so the tables can't be kept in a static
+ * field. They are kept in a map registered in the platform MBean server as {@value #OBJECT_NAME}, and both the map
+ * and everything in it are JDK types only (the MBean itself is a {@link RequiredModelMBean} managing an
+ * {@link AtomicReference} to the map). So all processor class loaders can use it, and it doesn't hold any of them.
+ *
+ * Symbols belong to one compilation, so a shared table is an immutable list of: fingerprints (size and last
+ * modification time) of class path entries of the type hierarchy, qualified names of types declaring the end
+ * methods, signatures of the end methods, and the custom error message of the type (or null). Tables are kept per
+ * class path entry of the type (jar file, or class file in a directory) and its binary name, and per configuration
+ * of the check (external end methods and library packages), which affects their content. A table is valid only as
+ * long as fingerprints of all class path entries of the type hierarchy don't change. Types compiled from sources are
+ * never shared.
+ *
+ * An instance holds state of one compilation (class path entries of the types and their fingerprints), so it's not
+ * thread safe, but the shared tables are.
+ */
+final class SharedEndMethods {
+
+	static final String OBJECT_NAME = "fluent.api:type=EndMethodTables";
+
+	private static final String NO_ENTRY = "";
+	private static final Map<String, String> NOT_SHARED = new HashMap<>();
+	private static final int ORIGINS = 0;
+	private static final int TYPES = 1;
+	private static final int SIGNATURES = 2;
+	private static final int MESSAGE = 3;
+
+	private final ConcurrentMap<Object, Object> tables;
+	private final Filer filer;
+	private final Trees trees;
+	private final Elements elements;
+	private final Map<Element, String> entries = new HashMap<>();
+	private final Map<String, String> fingerprints = new HashMap<>();
+	private final Map<Element, Map<String, String>> origins = new HashMap<>();
+
+	/**
+	 * @param jvmTables Tables shared in the JVM (see {@link #jvmTables()}).
+	 * @param externalEndMethods External end methods used by the compilation.
+	 * @param libraryPackages Patterns of library packages used by the compilation.
+	 */
+	@SuppressWarnings("unchecked")
+	SharedEndMethods(ConcurrentMap<Object, Object> jvmTables, Map<String, Set<String>> externalEndMethods, List<String> libraryPackages, Filer filer, Trees trees, Elements elements) {
+		Map<String, Set<String>> externals = new HashMap<>();
+		externalEndMethods.forEach((type, methods) -> externals.put(type, new HashSet<>(methods)));
+		this.tables = (ConcurrentMap<Object, Object>) jvmTables.computeIfAbsent(asList(externals, new ArrayList<>(libraryPackages)), key -> new ConcurrentHashMap<>());
+		this.filer = filer;
+		this.trees = trees;
+		this.elements = elements;
+	}
+
+	/**
+	 * Tables shared in the JVM, registered in the platform MBean server by the first compilation, which needs them.
+	 * The server is used as a lock, as it's the only instance shared by all the class loaders.
+	 * @throws JMException if the tables can't be registered or retrieved.
+	 * @throws InvalidTargetObjectTypeException never, the managed resource is always referenced by object.
+	 */
+	@SuppressWarnings("unchecked")
+	static ConcurrentMap<Object, Object> jvmTables() throws JMException, InvalidTargetObjectTypeException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		synchronized(server) {
+			if(!server.isRegistered(name)) {
+				ModelMBeanOperationInfo get = new ModelMBeanOperationInfo("get", "End method tables of class path types.", null, Object.class.getName(), MBeanOperationInfo.INFO);
+				RequiredModelMBean mBean = new RequiredModelMBean(new ModelMBeanInfoSupport(AtomicReference.class.getName(), "End method tables shared by compilations.", null, null, new ModelMBeanOperationInfo[]{get}, null));
+				mBean.setManagedResource(new AtomicReference<>(new ConcurrentHashMap<>()), "ObjectReference");
+				server.registerMBean(mBean, name);
+			}
+			return (ConcurrentMap<Object, Object>) server.invoke(name, "get", null, null);
+		}
+	}
+
+	/**
+	 * @param messages Custom error messages of types, which gets message of the type from the shared table.
+	 * @return End methods of the type in this compilation from a valid shared table, or null, if there is none.
+	 */
+	Set<Element> get(Element type, Map<Element, String> messages) {
+		String entry = entry(type);
+		if(isNull(entry)) {
+			return null;
+		}
+		List<?> table = (List<?>) tables.get(asList(entry, elements.getBinaryName((TypeElement) type).toString()));
+		if(isNull(table)) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, String> tableOrigins = (Map<String, String>) table.get(ORIGINS);
+		for(Map.Entry<String, String> origin : tableOrigins.entrySet()) {
+			if(!origin.getValue().equals(fingerprint(origin.getKey()))) {
+				return null;
+			}
+		}
+		Set<Element> methods = endMethods((List<?>) table.get(TYPES), (List<?>) table.get(SIGNATURES));
+		if(nonNull(methods)) {
+			origins.put(type, tableOrigins);
+			if(nonNull(table.get(MESSAGE))) {
+				messages.put(type, (String) table.get(MESSAGE));
+			}
+		}
+		return methods;
+	}
+
+	/**
+	 * @return End methods of the table in this compilation, or null, if any of them is not found.
+	 */
+	private Set<Element> endMethods(List<?> types, List<?> signatures) {
+		if(types.isEmpty()) {
+			return emptySet();
+		}
+		Set<Element> methods = new LinkedHashSet<>();
+		for(int i = 0; i < types.size(); i++) {
+			Element method = method(elements.getTypeElement((String) types.get(i)), (String) signatures.get(i));
+			if(isNull(method)) {
+				return null;
+			}
+			methods.add(method);
+		}
+		return methods;
+	}
+
+	private static Element method(TypeElement type, String signature) {
+		if(nonNull(type)) {
+			for(Element member : type.getEnclosedElements()) {
+				if(member.getKind() == METHOD && member.toString().equals(signature)) {
+					return member;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Share table of the type resolved in this compilation, if the type and all it's supertypes come from the class
+	 * path. Supertypes, which were not resolved (platform types), don't contribute to the table.
+	 */
+	void put(Element type, List<Element> supertypes, Set<Element> methods, String message) {
+		Map<String, String> typeOrigins = origins(type, supertypes);
+		origins.put(type, typeOrigins);
+		if(typeOrigins == NOT_SHARED) {
+			return;
+		}
+		List<String> types = new ArrayList<>();
+		List<String> signatures = new ArrayList<>();
+		for(Element method : methods) {
+			types.add(((TypeElement) method.getEnclosingElement()).getQualifiedName().toString());
+			signatures.add(method.toString());
+		}
+		List<Object> table = asList(typeOrigins, unmodifiableList(types), unmodifiableList(signatures), message);
+		tables.put(asList(entry(type), elements.getBinaryName((TypeElement) type).toString()), unmodifiableList(table));
+	}
+
+	private Map<String, String> origins(Element type, List<Element> supertypes) {
+		String entry = entry(type);
+		String fingerprint = isNull(entry) ? null : fingerprint(entry);
+		if(isNull(fingerprint)) {
+			return NOT_SHARED;
+		}
+		Map<String, String> typeOrigins = new HashMap<>();
+		typeOrigins.put(entry, fingerprint);
+		for(Element supertype : supertypes) {
+			Map<String, String> supertypeOrigins = origins.get(supertype);
+			if(supertypeOrigins == NOT_SHARED) {
+				return NOT_SHARED;
+			}
+			if(nonNull(supertypeOrigins)) {
+				typeOrigins.putAll(supertypeOrigins);
+			}
+		}
+		return unmodifiableMap(typeOrigins);
+	}
+
+	private String entry(Element type) {
+		String entry = entries.get(type);
+		if(isNull(entry)) {
+			entry = type instanceof TypeElement ? findEntry((TypeElement) type) : NO_ENTRY;
+			entries.put(type, entry);
+		}
+		return entry.isEmpty() ? null : entry;
+	}
+
+	/**
+	 * Class path entry of the type is found by the filer the same way, as javac finds class files, i.e. without any
+	 * access to compiler internals.
+	 */
+	private String findEntry(TypeElement type) {
+		if(nonNull(trees.getPath(type))) {
+			return NO_ENTRY;
+		}
+		String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+		String binaryName = elements.getBinaryName(type).toString();
+		String fileName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + ".class";
+		try {
+			URI uri = filer.getResource(CLASS_PATH, packageName, fileName).toUri();
+			if("jar".equals(uri.getScheme())) {
+				String name = uri.toString();
+				return Paths.get(URI.create(name.substring("jar:".length(), name.indexOf("!/")))).toString();
+			}
+			if("file".equals(uri.getScheme())) {
+				return Paths.get(uri).toString();
+			}
+		} catch (IOException | RuntimeException e) {
+			// Type not found on the class path (e.g. comes from the platform), so it's not shared.
+		}
+		return NO_ENTRY;
+	}
+
+	private String fingerprint(String entry) {
+		String fingerprint = fingerprints.get(entry);
+		if(isNull(fingerprint) && !fingerprints.containsKey(entry)) {
+			try {
+				Path path = Paths.get(entry);
+				fingerprint = Files.size(path) + "/" + Files.getLastModifiedTime(path).toMillis();
+			} catch (IOException | RuntimeException e) {
+				fingerprint = null;
+			}
+			fingerprints.put(entry, fingerprint);
+		}
+		return fingerprint;
+	}
+
+}
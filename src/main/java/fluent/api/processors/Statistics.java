@@ -0,0 +1,146 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.Locale.ROOT;
+
+/**
+ * Counters of the work done by the end method check within one compilation.
+ */
+class Statistics {
+
+	long compilationUnits;
+	long filteredUnits;
+	long excludedUnits;
+	long generatedUnits;
+	long statements;
+	long violations;
+	long lambdas;
+	long nodes;
+	long resolutions;
+	long cacheHits;
+	long cacheMisses;
+	long hierarchyWalks;
+	long rejectedTypes;
+	long sharedTables;
+	long externalEntries;
+	long externalLoadTime;
+	long initTime;
+	long scanTime;
+
+	private final int slowestUnitsLimit;
+	private final Map<String, UnitTime> unitTimes = new HashMap<>();
+
+	Statistics() {
+		this(0);
+	}
+
+	/**
+	 * @param slowestUnitsLimit Number of the slowest compilation units to keep track of.
+	 */
+	Statistics(int slowestUnitsLimit) {
+		this.slowestUnitsLimit = slowestUnitsLimit;
+	}
+
+	/**
+	 * Classes of one compilation unit are analyzed separately, so their statements and time are summed per unit.
+	 * @param firstVisit False if other class of the same compilation unit was already scanned.
+	 */
+	void unitScanned(String name, boolean firstVisit, long statements, long time) {
+		if(firstVisit) {
+			compilationUnits++;
+		}
+		scanTime += time;
+		if(slowestUnitsLimit > 0) {
+			UnitTime unit = unitTimes.computeIfAbsent(name, UnitTime::new);
+			unit.statements += statements;
+			unit.time += time;
+		}
+	}
+
+	String slowestUnits() {
+		PriorityQueue<UnitTime> slowestUnits = new PriorityQueue<>(comparingLong(unit -> unit.time));
+		for(UnitTime unit : unitTimes.values()) {
+			slowestUnits.add(unit);
+			if(slowestUnits.size() > slowestUnitsLimit) {
+				slowestUnits.poll();
+			}
+		}
+		List<UnitTime> units = new ArrayList<>(slowestUnits);
+		units.sort(comparingLong((UnitTime unit) -> unit.time).reversed());
+		StringBuilder report = new StringBuilder("Slowest compilation units checked for @End methods:");
+		units.forEach(unit -> report.append("\n  ").append(millis(unit.time)).append(", ")
+				.append(unit.statements).append(" statements: ").append(unit.name));
+		return report.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "@End method check statistics:" +
+				"\n  compilation units scanned: " + compilationUnits +
+				"\n  compilation units in ignored or excluded packages: " + excludedUnits +
+				"\n  generated compilation units skipped: " + generatedUnits +
+				"\n  compilation units skipped by name filter: " + filteredUnits +
+				"\n  statements visited: " + statements +
+				"\n  lambdas and method references visited: " + lambdas +
+				"\n  tree nodes visited: " + nodes +
+				"\n  symbols and types resolved: " + resolutions +
+				"\n  missing end methods reported: " + violations +
+				"\n  end methods cache hits: " + cacheHits + ", misses: " + cacheMisses +
+				"\n  type hierarchy walks: " + hierarchyWalks +
+				"\n  platform and library types rejected without walk: " + rejectedTypes +
+				"\n  end method tables reused from previous compilations: " + sharedTables +
+				"\n  external end method entries loaded: " + externalEntries + " in " + millis(externalLoadTime) +
+				"\n  time spent in initialization: " + millis(initTime) +
+				"\n  time spent in scanning: " + millis(scanTime);
+	}
+
+	static String millis(long nanos) {
+		return String.format(ROOT, "%.1f ms", nanos / 1e6);
+	}
+
+	private static final class UnitTime {
+		private final String name;
+		private long statements;
+		private long time;
+
+		private UnitTime(String name) {
+			this.name = name;
+		}
+	}
+
+}
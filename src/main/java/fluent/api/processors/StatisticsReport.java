@@ -0,0 +1,89 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import javax.annotation.processing.Messager;
+import java.util.Arrays;
+
+import static javax.tools.Diagnostic.Kind.NOTE;
+
+/**
+ * Compiler plugin printing collected statistics of the end method check, when the whole compilation is finished.
+ */
+class StatisticsReport implements TaskListener {
+
+	private final Statistics statistics;
+	private final Messager messager;
+	private final boolean summary;
+	private final boolean slowestUnits;
+
+	StatisticsReport(Statistics statistics, Messager messager, boolean summary, boolean slowestUnits) {
+		this.statistics = statistics;
+		this.messager = messager;
+		this.summary = summary;
+		this.slowestUnits = slowestUnits;
+	}
+
+	/**
+	 * End of the whole compilation is reported only by javac 9+, so the event kind is compared by name to stay
+	 * compatible with Java 8 compiler.
+	 */
+	static boolean isCompilationFinished(TaskEvent taskEvent) {
+		return "COMPILATION".equals(taskEvent.getKind().name());
+	}
+
+	/**
+	 * @return True if the running compiler reports end of the whole compilation (javac 9+).
+	 */
+	static boolean isCompilationEndReported() {
+		return Arrays.stream(TaskEvent.Kind.values()).anyMatch(kind -> "COMPILATION".equals(kind.name()));
+	}
+
+	@Override
+	public void started(TaskEvent taskEvent) {
+		// Nothing to do on task started event.
+	}
+
+	@Override
+	public void finished(TaskEvent taskEvent) {
+		if(isCompilationFinished(taskEvent)) {
+			if(summary) {
+				messager.printMessage(NOTE, statistics.toString());
+			}
+			if(slowestUnits) {
+				messager.printMessage(NOTE, statistics.slowestUnits());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+/**
+ * Tracing of the check phases using Java Flight Recorder events.
+ *
+ * JFR API is touched only if it's present in the running JVM (Java 11+ or Java 8 update 262+), otherwise tracing
+ * does nothing. Events are created only when they are enabled in a running recording, and the subject of the event
+ * is converted to string only when the event is really committed.
+ */
+abstract class Tracing {
+
+	enum Phase {
+		EXTERNAL_FILE_LOADING, COMPILATION_UNIT_SCANNING, END_METHODS_RESOLUTION
+	}
+
+	static final Tracing TRACING = tracing();
+
+	/**
+	 * Start the event for given phase.
+	 * @param phase Phase of the check.
+	 * @return Started event, or null if tracing of the phase is not enabled.
+	 */
+	abstract Object begin(Phase phase);
+
+	/**
+	 * End the event, and commit it if it passes the recording thresholds.
+	 * @param event Event previously returned by {@link #begin(Phase)}.
+	 * @param subject Subject of the event (file, compilation unit or type), which name is recorded.
+	 */
+	abstract void end(Object event, Object subject);
+
+	private static Tracing tracing() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (Tracing) Class.forName("fluent.api.processors.FlightRecorderTracing").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError unavailable) {
+			return new Tracing() {
+				@Override Object begin(Phase phase) { return null; }
+				@Override void end(Object event, Object subject) { }
+			};
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import fluent.api.processors.EndProcessor;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static java.lang.Double.parseDouble;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Locale.ROOT;
+
+/**
+ * Relative cost of the end method check. The same sources are compiled with and without the EndProcessor, and the
+ * difference in wall time, CPU time and allocated memory is expressed in percents of the compilation without it.
+ */
+public final class CompileOverhead {
+
+    public enum Metric {
+        WALL_TIME("Wall time", "ms", 1e6, false),
+        CPU_TIME("CPU time", "ms", 1e6, true),
+        ALLOCATED_MEMORY("Allocated memory", "MB", 1 << 20, true);
+
+        private final String label;
+        private final String unit;
+        private final double scale;
+        private final boolean stable;
+
+        Metric(String label, String unit, double scale, boolean stable) {
+            this.label = label;
+            this.unit = unit;
+            this.scale = scale;
+            this.stable = stable;
+        }
+
+        /**
+         * @return True if the metric is stable enough to be compared between builds. Wall time depends on load of the
+         *         machine, so it's only recorded.
+         */
+        public boolean isStable() {
+            return stable;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final Path OUTPUT = Paths.get("target", "compile-overhead");
+
+    private final Map<Metric, Double> without;
+    private final Map<Metric, Double> with;
+
+    private CompileOverhead(Map<Metric, Double> without, Map<Metric, Double> with) {
+        this.without = without;
+        this.with = with;
+    }
+
+    /**
+     * Overhead of the processor in given metric.
+     * @param metric Measured metric.
+     * @return Increase of the metric caused by the processor in percents.
+     */
+    public double overhead(Metric metric) {
+        return 100 * (with.get(metric) - without.get(metric)) / without.get(metric);
+    }
+
+    /**
+     * Compile generated corpus alternately with and without the processor, and take median of each metric.
+     * @param corpus Corpus to compile.
+     * @param warmup Number of warm-up compilations in each configuration, which are not measured.
+     * @param runs Number of measured compilations in each configuration.
+     * @return Measured overhead.
+     * @throws IOException in case of failure to prepare output directory.
+     */
+    public static CompileOverhead measure(CorpusGenerator corpus, int warmup, int runs) throws IOException {
+        Files.createDirectories(OUTPUT);
+        List<JavaFileObject> sources = corpus.generate();
+        List<String> without = asList("-d", OUTPUT.toString(), "-proc:none");
+        List<String> with = asList("-d", OUTPUT.toString(), "-processor", EndProcessor.class.getName());
+        for(int i = 0; i < warmup; i++) {
+            compile(sources, without);
+            compile(sources, with);
+        }
+        List<Map<Metric, Double>> withoutRuns = new ArrayList<>();
+        List<Map<Metric, Double>> withRuns = new ArrayList<>();
+        for(int i = 0; i < runs; i++) {
+            withoutRuns.add(compile(sources, without));
+            withRuns.add(compile(sources, with));
+        }
+        return new CompileOverhead(median(withoutRuns), median(withRuns));
+    }
+
+    /**
+     * Read overhead recorded in a test report.
+     * @param report Test report to read.
+     * @return Overhead in percents per metric. Empty, if the report doesn't contain measured overhead.
+     * @throws IOException in case of failure to read the report.
+     */
+    public static Map<Metric, Double> overheadIn(Path report) throws IOException {
+        Map<Metric, Double> overhead = new EnumMap<>(Metric.class);
+        for(String line : Files.readAllLines(report)) {
+            for(Metric metric : Metric.values()) {
+                if(line.startsWith("| " + metric + " |")) {
+                    String[] cells = line.split("\\|");
+                    overhead.put(metric, parseDouble(cells[cells.length - 1].replace("%", "").trim()));
+                }
+            }
+        }
+        return overhead;
+    }
+
+    private static Map<Metric, Double> compile(List<JavaFileObject> sources, List<String> options) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        long wallTime = System.nanoTime();
+        long cpuTime = threads.getCurrentThreadCpuTime();
+        long allocatedMemory = threads.getThreadAllocatedBytes(thread);
+        boolean result = compiler.getTask(new StringWriter(), fileManager, listener, options, null, sources).call();
+        Map<Metric, Double> metrics = new EnumMap<>(Metric.class);
+        metrics.put(Metric.WALL_TIME, (double) (System.nanoTime() - wallTime));
+        metrics.put(Metric.CPU_TIME, (double) (threads.getCurrentThreadCpuTime() - cpuTime));
+        metrics.put(Metric.ALLOCATED_MEMORY, (double) (threads.getThreadAllocatedBytes(thread) - allocatedMemory));
+        if(!result) {
+            throw new IllegalStateException("Compilation of the corpus failed: " + listener.getDiagnostics());
+        }
+        return metrics;
+    }
+
+    private static Map<Metric, Double> median(List<Map<Metric, Double>> runs) {
+        Map<Metric, Double> median = new EnumMap<>(Metric.class);
+        for(Metric metric : Metric.values()) {
+            double[] values = runs.stream().mapToDouble(run -> run.get(metric)).sorted().toArray();
+            median.put(metric, values[values.length / 2]);
+        }
+        return median;
+    }
+
+    /**
+     * @return Markdown table with measured metrics and overhead.
+     */
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder("| Metric | Without processor | With processor | Overhead |\n| --- | ---: | ---: | ---: |\n");
+        for(Metric metric : Metric.values()) {
+            table.append(format(ROOT, "| %s | %.0f %s | %.0f %s | %.1f %% |%n", metric,
+                    without.get(metric) / metric.scale, metric.unit, with.get(metric) / metric.scale, metric.unit, overhead(metric)));
+        }
+        return table.toString();
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import fluent.api.CompileOverhead.Metric;
+import org.testng.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static fluent.api.Version.since;
+import static java.lang.Double.parseDouble;
+import static java.lang.String.format;
+import static java.util.Locale.ROOT;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Regression gate of the processor cost. Overhead of the processor is recorded in the test report, and overhead in CPU
+ * time and allocated memory must not grow more than configured threshold (property compile.overhead.threshold, in
+ * percentage points) compared to overhead recorded in the report of previous release. Measurement needs repeated
+ * compilations, so the gate runs only in maven profile compile-overhead.
+ */
+public class CompileOverheadTest {
+
+    private static final Path REPORTS = Paths.get("reports");
+    private static final Pattern REPORT = Pattern.compile("TEST-REPORT-(.*)\\.md");
+
+    private final Version version = new Version(System.getProperty("project.version"));
+    private final double threshold = parseDouble(System.getProperty("compile.overhead.threshold", "25"));
+
+    @DataProvider
+    public static Object[][] corpora() {
+        return new Object[][]{
+                {new CorpusGenerator().files(10).statementsPerFile(200).supertypeDepth(5).endTypes(5).chainLength(10), "CompileOverhead", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "corpora", groups = "compile-overhead")
+    public void processorOverheadShouldNotGrowOverPreviousReleaseFor(CorpusGenerator corpus, String name, Version since) throws IOException {
+        CompileOverhead overhead = CompileOverhead.measure(corpus, 5, 9);
+        Reporter.getCurrentTestResult().setAttribute(CompileOverhead.class.getName(), overhead);
+        Optional<Path> previousReport = previousReleaseReport();
+        if(previousReport.isPresent()) {
+            Map<Metric, Double> baseline = CompileOverhead.overheadIn(previousReport.get());
+            baseline.forEach((metric, previous) -> assertTrue(!metric.isStable() || overhead.overhead(metric) <= previous + threshold, format(ROOT,
+                    "%s overhead %.1f %% grew more than %.1f percentage points over %.1f %% recorded in %s.",
+                    metric, overhead.overhead(metric), threshold, previous, previousReport.get())));
+        }
+    }
+
+    private Optional<Path> previousReleaseReport() throws IOException {
+        try(Stream<Path> reports = Files.list(REPORTS)) {
+            return reports.map(report -> REPORT.matcher(report.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> new Version(matcher.group(1)))
+                    .filter(release -> !release.isSnapshot() && release.compareTo(version) < 0)
+                    .max(Version::compareTo)
+                    .map(release -> REPORTS.resolve("TEST-REPORT-" + release + ".md"));
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import com.sun.source.util.JavacTask;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static fluent.api.CorpusGenerator.Statement.*;
+import static fluent.api.Version.since;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
+public class CorpusGeneratorTest {
+
+    @DataProvider
+    public static Object[][] corpora() {
+        return new Object[][]{
+                {new CorpusGenerator().files(2).statementsPerFile(120), "GeneratedCorpus", since("1.24")},
+                {new CorpusGenerator().supertypeDepth(10).endTypes(3).startTypes(2).chainLength(30), "GeneratedCorpusWithDeepHierarchy", since("1.24")},
+                {new CorpusGenerator().supertypeDepth(12).typeArguments(4).endTypes(3).chainLength(30).missingEndEvery(5), "GeneratedCorpusWithDeepGenericHierarchy", since("1.24")},
+                {new CorpusGenerator().statements(LAMBDA, REFERENCE).lambdaDepth(5), "GeneratedCorpusWithNestedLambdas", since("1.24")},
+                {new CorpusGenerator().statementsPerFile(60).missingEndEvery(7), "GeneratedCorpusWithMissingEndMethods", since("1.24")},
+                {new CorpusGenerator().statements(PLAIN), "GeneratedCorpusWithoutDsl", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "corpora")
+    public void compilationShouldReportExactlyMissingEndMethodsOf(CorpusGenerator corpus, String name, Version since) throws IOException {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        JavacTask task = (JavacTask) compiler.getTask(new StringWriter(), fileManager, listener, emptyList(), null, corpus.generate());
+        task.analyze();
+        List<Diagnostic<? extends JavaFileObject>> errors = listener.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).collect(toList());
+        Assert.assertEquals(errors.size(), corpus.violations(), errors.toString());
+    }
+
+}
@@ -30,6 +30,7 @@
 package fluent.api;
 
 import fluent.api.processors.EndProcessor;
+import fluent.api.processors.RunManifest;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -75,6 +76,30 @@ public class EndMethodCheckFileTest {
         }
     }
 
+    @DataProvider
+    public static Object[][] manifests() {
+        return new Object[][]{
+                {ShouldPass, "EndMethodCheckFileWithManifest", since("1.24")},
+                {ShouldThrowAssertionError, "EndMethodCheckFileWithUniqueName", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "manifests")
+    public void runManifest(Assertion assertion, String className, Version since) throws URISyntaxException, IOException {
+        compile(className);
+        try {
+            RunManifest manifest = EndProcessor.assertThatRunManifestExists(className + ".file");
+            Assert.assertTrue(manifest.getProcessorVersion().matches("\\d+\\.\\d+.*"), manifest.toString());
+            Assert.assertTrue(manifest.isComplete(), manifest.toString());
+            assertEquals(manifest.getCompilationUnits(), 1L);
+            Assert.assertTrue(manifest.getStatements() > 0, manifest.toString());
+            assertEquals(manifest.getViolations(), 0L);
+            assertEquals(assertion, ShouldPass);
+        } catch (AssertionError assertionError) {
+            assertEquals(assertion, ShouldThrowAssertionError, assertionError.getMessage());
+        }
+    }
+
     private void compile(String className) throws URISyntaxException, IOException {
         DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
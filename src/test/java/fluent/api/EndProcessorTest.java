@@ -44,6 +44,8 @@ import static fluent.api.EndProcessorTest.Expectation.FailWhen;
 import static fluent.api.EndProcessorTest.Expectation.PassWhen;
 import static fluent.api.Version.since;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 
 @Listeners(MarkdownReporter.class)
 public class EndProcessorTest {
@@ -73,6 +75,9 @@ public class EndProcessorTest {
                 {PassWhen, "IgnoreEndMethodOnThis", since(1.9)},
                 {PassWhen, "EndMethodNotMissingInSequenceChain", since(1.15)},
                 {PassWhen, "NonDslStatement", since(2.21)},
+                {PassWhen, "EndMethodCheckIgnoredOnClass", since(1.24)},
+                {PassWhen, "ignored/EndMethodMissingInIgnoredPackage", since(1.24)},
+                {PassWhen, "EndMethodNotMissingInOverriddenConsumerExpression", since(1.24)},
 
                 {FailWhen, "ImmediateEndMethodMissing", since(1.3)},
                 {FailWhen, "ImmediateEndMethodMissingAfterConstructor", since(1.4)},
@@ -93,17 +98,30 @@ public class EndProcessorTest {
                 {FailWhen, "ChainStartsWithThis", since(1.9)},
                 {FailWhen, "EndMethodMissingAfterPassThroughMethod", since(1.13)},
                 {FailWhen, "EndMethodMissingInSequenceChain", since(1.15)},
-                {FailWhen, "EndMethodMissingInLambdaInAssignment", since(1.20)}
+                {FailWhen, "EndMethodMissingInLambdaInAssignment", since(1.20)},
+                {FailWhen, "EndMethodMissingNextToIgnoredClass", since(1.24)},
+                {FailWhen, "GeneratedEndMethodMissing", since(1.24)},
+                {FailWhen, "EndMethodMissingInInheritedConsumerExpression", since(1.24)},
+                {FailWhen, "wildcard/EndMethodMissingWithWildcardImport", since(1.24)}
         };
     }
 
     @Test(dataProvider = "sourceFiles")
     public void compilationShould(Expectation expected, String className, Version since) throws URISyntaxException {
+        compilationWithOptionsShould(expected, className, emptyList());
+    }
+
+    @Test(dataProvider = "sourceFiles")
+    public void compilationWithPrefilterShould(Expectation expected, String className, Version since) throws URISyntaxException {
+        compilationWithOptionsShould(expected, className, singletonList("-Afluent.api.prefilter=true"));
+    }
+
+    private void compilationWithOptionsShould(Expectation expected, String className, List<String> options) throws URISyntaxException {
         DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
         StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
         Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource(className + ".java").toURI()));
-        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, emptyList(), null, fileObjects);
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, options, null, fileObjects);
         boolean result = task.call();
         List<Diagnostic<? extends JavaFileObject>> diagnostics = listener.getDiagnostics();
         if (!diagnostics.isEmpty()) {
@@ -140,4 +158,24 @@ public class EndProcessorTest {
         Assert.assertTrue(diagnostics.toString().contains(expected));
     }
 
+    @DataProvider
+    public static Object[][] sourceFilesWithRepeatedCustomError() {
+        return new Object[][]{
+                {"Custom error", "EndMethodWithCustomErrorMissingTwice", since(1.24)}
+        };
+    }
+
+    @Test(dataProvider = "sourceFilesWithRepeatedCustomError")
+    public void everyErrorShouldHaveMessage(String expected, String className, Version since) throws URISyntaxException {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource(className + ".java").toURI()));
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, emptyList(), null, fileObjects);
+        Assert.assertFalse(task.call());
+        List<String> errors = listener.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).map(diagnostic -> diagnostic.getMessage(null)).collect(toList());
+        Assert.assertEquals(errors.size(), 2, errors.toString());
+        errors.forEach(error -> Assert.assertEquals(error, expected));
+    }
+
 }
@@ -0,0 +1,126 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import fluent.api.processors.EndProcessor;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.processing.Processor;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.tools.*;
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import static fluent.api.Version.since;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+public class JmxMetricsTest {
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @DataProvider
+    public static Object[][] metrics() {
+        return new Object[][]{
+                {"CompilationUnits", "EndMethodNotMissing", since("1.24")},
+                {"Statements", "EndMethodNotMissing", since("1.24")},
+                {"CacheMisses", "EndMethodMissing", since("1.24")},
+                {"HierarchyWalks", "EndMethodMissing", since("1.24")},
+                {"ExternalEntries", "ExternalEndMethodNotMissing", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "metrics")
+    public void compilationShouldPublishMetric(String attribute, String className, Version since) throws URISyntaxException, JMException {
+        compile(className);
+        ObjectName name = new ObjectName("fluent.api:type=EndMethodCheck");
+        server.invoke(name, "reset", null, null);
+        Assert.assertEquals(((Number) server.getAttribute(name, attribute)).longValue(), 0L);
+        compile(className);
+        Assert.assertTrue(((Number) server.getAttribute(name, attribute)).longValue() > 0, attribute);
+        Assert.assertEquals(server.getAttribute(name, "Compilations"), 1L);
+    }
+
+    @DataProvider
+    public static Object[][] classLoaders() {
+        return new Object[][]{
+                {"EndMethodNotMissing", since("1.24")},
+                {"ExternalEndMethodNotMissing", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "classLoaders")
+    public void compilationsInIsolatedClassLoadersShouldCumulateMetrics(String className, Version since) throws Exception {
+        compile(className);
+        ObjectName name = new ObjectName("fluent.api:type=EndMethodCheck");
+        server.invoke(name, "reset", null, null);
+        URL processorPath = EndProcessor.class.getProtectionDomain().getCodeSource().getLocation();
+        try(URLClassLoader first = new URLClassLoader(new URL[]{processorPath}, ClassLoader.getSystemClassLoader().getParent());
+            URLClassLoader second = new URLClassLoader(new URL[]{processorPath}, ClassLoader.getSystemClassLoader().getParent())) {
+            URLClassLoader[] alternating = {first, second, first, second};
+            for(int i = 0; i < alternating.length; i++) {
+                Assert.assertEquals(compile(className, alternating[i]), emptyList());
+                Assert.assertEquals(server.getAttribute(name, "Compilations"), i + 1L);
+                Assert.assertEquals(server.getAttribute(name, "CompilationUnits"), i + 1L);
+                Assert.assertSame(server.getClassLoaderFor(name), alternating[i]);
+            }
+        }
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String className, ClassLoader processorLoader) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource(className + ".java").toURI()));
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, diagnostics, singletonList("-Afluent.api.jmx=true"), null, fileObjects);
+        task.setProcessors(singletonList((Processor) processorLoader.loadClass(EndProcessor.class.getName()).getConstructor().newInstance()));
+        Assert.assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        return diagnostics.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == WARNING && diagnostic.getMessage(null).contains("JMX")).collect(toList());
+    }
+
+    private void compile(String className) throws URISyntaxException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource(className + ".java").toURI()));
+        compiler.getTask(new StringWriter(), fileManager, new DiagnosticCollector<>(), singletonList("-Afluent.api.jmx=true"), null, fileObjects).call();
+    }
+
+}
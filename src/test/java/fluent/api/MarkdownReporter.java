@@ -44,6 +44,7 @@ import static java.lang.Character.toUpperCase;
 import static java.time.ZonedDateTime.now;
 import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
 import static java.util.Arrays.stream;
+import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.joining;
 
 public class MarkdownReporter implements ITestListener {
@@ -93,7 +94,15 @@ public class MarkdownReporter implements ITestListener {
                 : uncamel(String.valueOf(parameter))
         ).collect(joining(" ")));
         Object src = testResult.getParameters()[1];
-        output.println("Compiler source code: [" + src + ".java](../src/test/resources/fluent/api/" + src + ".java)");
+        if(nonNull(getClass().getResource(src + ".java"))) {
+            output.println("Compiler source code: [" + src + ".java](../src/test/resources/fluent/api/" + src + ".java)");
+        }
+        Object overhead = testResult.getAttribute(CompileOverhead.class.getName());
+        if(nonNull(overhead)) {
+            output.println();
+            output.print(overhead);
+            output.println();
+        }
     }
 
     @Override
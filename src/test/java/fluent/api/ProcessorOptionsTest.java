@@ -0,0 +1,112 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.util.List;
+
+import static fluent.api.Version.since;
+import static java.util.Arrays.asList;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+public class ProcessorOptionsTest {
+
+    @DataProvider
+    public static Object[][] options() {
+        return new Object[][]{
+                {"-Afluent.api.stats=true", "EndMethodNotMissing", "compilation units scanned: 1", since("1.24")},
+                {"-Afluent.api.stats=true", "EndMethodNotMissingInConsumerExpression", "lambdas and method references visited: 1", since("1.24")},
+                {"-Afluent.api.stats=true", "EndMethodNotMissingInMultipleClasses", "statements visited: 5\n", since("1.24")},
+                {"-Afluent.api.stats=true", "NoEndMethodCheckFile", "external end method entries loaded: 0 in 0.0 ms", since("1.24")},
+                {"-Afluent.api.stats=true", "ExternalEndMethodNotMissing", "external end method entries loaded: 4", since("1.24")},
+                {"-Afluent.api.stats=true", "ExternalEndMethodNotMissing", "time spent in initialization: ", since("1.24")},
+                {"-Afluent.api.slowest=5", "EndMethodNotMissing", "Slowest compilation units checked for @End methods:", since("1.24")},
+                {"-Afluent.api.unitBudget=0.000001", "EndMethodNotMissing", "EndMethodNotMissing.java took", since("1.24")},
+                {"-Afluent.api.ignoreMissingEndMethod=true -Afluent.api.stats=true", "EndMethodMissing", "compilation units scanned: 0", since("1.24")},
+                {"-Afluent.api.skipGenerated=true -Afluent.api.stats=true", "GeneratedEndMethodMissing", "generated compilation units skipped: 1", since("1.24")},
+                {"-Afluent.api.skipGenerated=true -Afluent.api.stats=true -Afluent.api.generatedDirectories=target/test-classes", "EndMethodMissing", "generated compilation units skipped: 1", since("1.24")},
+                {"-Afluent.api.skipGenerated=true -Afluent.api.stats=true -s target/test-classes -d target", "EndMethodMissing", "generated compilation units skipped: 1", since("1.24")},
+                {"-Afluent.api.exclude=fluent.** -Afluent.api.stats=true", "EndMethodMissing", "compilation units in ignored or excluded packages: 1", since("1.24")},
+                {"-Afluent.api.include=com.acme.dsl.** -Afluent.api.stats=true", "EndMethodMissing", "compilation units in ignored or excluded packages: 1", since("1.24")},
+                {"-Afluent.api.include=com.acme.**,fluent.* -Afluent.api.stats=true", "EndMethodNotMissing", "compilation units in ignored or excluded packages: 0", since("1.24")},
+                {"-Afluent.api.prefilter=true -Afluent.api.stats=true", "plain/PlainStatement", "compilation units skipped by name filter: 1", since("1.24")},
+                {"-Afluent.api.prefilter=true -Afluent.api.stats=true", "NonDslStatement", "compilation units skipped by name filter: 0", since("1.24")},
+                {"-Afluent.api.prefilter=true -Afluent.api.stats=true", "EndMethodNotMissing", "compilation units skipped by name filter: 0", since("1.24")},
+                {"-Afluent.api.prefilter=true -Afluent.api.stats=true", "ExternalEndMethodNotMissing", "compilation units skipped by name filter: 0", since("1.24")},
+                {"-Afluent.api.libraryPackages=fluent.** -Afluent.api.stats=true", "EndMethodMissing", "type hierarchy walks: 0", since("1.24")},
+                {"-Afluent.api.stats=true", "PlatformTypeStatement", "type hierarchy walks: 0", since("1.24")}
+        };
+    }
+
+    @DataProvider
+    public static Object[][] invalidOptions() {
+        return new Object[][]{
+                {"-Afluent.api.exclude=**.internal", "Invalid package pattern **.internal in option fluent.api.exclude", since("1.24")},
+                {"-Afluent.api.include=com.**.dsl", "Invalid package pattern com.**.dsl in option fluent.api.include", since("1.24")},
+                {"-Afluent.api.libraryPackages=**.guava", "Invalid package pattern **.guava in option fluent.api.libraryPackages", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "invalidOptions")
+    public void compilationWithInvalidOptionShouldFail(String option, String expected, Version since) throws URISyntaxException {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource("EndMethodNotMissing.java").toURI()));
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, asList(option.split(" ")), null, fileObjects);
+        Assert.assertFalse(task.call(), listener.getDiagnostics().toString());
+        Assert.assertTrue(listener.getDiagnostics().stream().anyMatch(diagnostic -> diagnostic.getKind() == ERROR && diagnostic.getMessage(null).contains(expected)), listener.getDiagnostics().toString());
+    }
+
+    @Test(dataProvider = "options")
+    public void compilationWithOption(String option, String className, String expected, Version since) throws URISyntaxException {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource(className + ".java").toURI()));
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, asList(option.split(" ")), null, fileObjects);
+        boolean result = task.call();
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = listener.getDiagnostics();
+        if (!diagnostics.isEmpty()) {
+            System.out.println(diagnostics);
+        }
+        Assert.assertTrue(result, diagnostics.toString());
+        Assert.assertTrue(diagnostics.toString().contains(expected), diagnostics.toString());
+        Assert.assertFalse(diagnostics.toString().contains("not recognized"), diagnostics.toString());
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static fluent.api.CorpusGenerator.Statement.*;
+import static fluent.api.Version.since;
+import static java.util.Arrays.asList;
+
+/**
+ * Check, that work done in scanning grows linearly with size of the compilation unit. Number of symbols and types
+ * resolved per statement is deterministic, so a file 4 times bigger must not resolve more per statement than the small
+ * one, e.g. because statements are resolved again. Cost of a single resolution (e.g. a search of the path from the root
+ * of the compilation unit) is visible only in time, so scan time per statement is compared too, but as wall-clock time
+ * of a few milliseconds is too noisy for the default test run, only in maven profile compile-overhead.
+ */
+public class ScalingTest {
+
+    private static final int SMALL = 2_500;
+    private static final int LARGE = 4 * SMALL;
+    private static final int REPETITIONS = 5;
+    private static final double TIME_RATIO = 2;
+    private static final Pattern RESOLUTIONS = Pattern.compile("symbols and types resolved: ([0-9]+)");
+    private static final Pattern SCAN_TIME = Pattern.compile("time spent in scanning: ([0-9.]+) ms");
+
+    @DataProvider
+    public static Object[][] corpora() {
+        return new Object[][]{
+                {new CorpusGenerator().statements(CHAIN, START), "GeneratedCorpusWithChains", since("1.24")},
+                {new CorpusGenerator().statements(LAMBDA, REFERENCE), "GeneratedCorpusWithLambdas", since("1.24")},
+                {new CorpusGenerator().statements(PLAIN), "GeneratedCorpusWithoutDsl", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "corpora")
+    public void resolutionsShouldGrowLinearlyWithFileSize(CorpusGenerator corpus, String name, Version since) throws IOException {
+        double small = statistic(corpus.statementsPerFile(SMALL), RESOLUTIONS) / SMALL;
+        double large = statistic(corpus.statementsPerFile(LARGE), RESOLUTIONS) / LARGE;
+        Assert.assertTrue(large <= small, name + ": Check of " + LARGE + " statements resolved " + large + " symbols and types per statement, but of " + SMALL + " statements " + small + ".");
+    }
+
+    @Test(dataProvider = "corpora", groups = "compile-overhead")
+    public void scanTimeShouldGrowLinearlyWithFileSize(CorpusGenerator corpus, String name, Version since) throws IOException {
+        double small = fastest(corpus.statementsPerFile(SMALL)) / SMALL;
+        double large = fastest(corpus.statementsPerFile(LARGE)) / LARGE;
+        Assert.assertTrue(large <= TIME_RATIO * small, name + ": Check of " + LARGE + " statements took " + large + " ms per statement, but of " + SMALL + " statements " + small + " ms.");
+    }
+
+    private double fastest(CorpusGenerator corpus) throws IOException {
+        double fastest = Double.MAX_VALUE;
+        for(int i = 0; i < REPETITIONS; i++) {
+            fastest = Math.min(fastest, statistic(corpus, SCAN_TIME));
+        }
+        return fastest;
+    }
+
+    private double statistic(CorpusGenerator corpus, Pattern pattern) throws IOException {
+        Path output = Files.createDirectories(Paths.get("target", "scaling"));
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, asList("-Afluent.api.stats=true", "-d", output.toString()), null, corpus.generate());
+        Assert.assertTrue(task.call(), listener.getDiagnostics().toString());
+        Matcher matcher = pattern.matcher(listener.getDiagnostics().toString());
+        Assert.assertTrue(matcher.find(), listener.getDiagnostics().toString());
+        return Double.parseDouble(matcher.group(1));
+    }
+
+}
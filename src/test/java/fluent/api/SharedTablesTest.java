@@ -0,0 +1,176 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api;
+
+import fluent.api.processors.EndProcessor;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.processing.Processor;
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static fluent.api.Version.since;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * End method tables of class path types are shared by compilations in the same JVM, even if they load the processor
+ * by different class loaders. Compilations reusing them must report exactly the same errors, and tables must not be
+ * reused, when the class path entry changed.
+ */
+public class SharedTablesTest {
+
+    private static final Pattern SHARED_TABLES = Pattern.compile("end method tables reused from previous compilations: ([0-9]+)");
+
+    @DataProvider
+    public static Object[][] sourceFiles() {
+        return new Object[][]{
+                {"EndMethodMissing", since("1.24")},
+                {"EndMethodWithCustomErrorMissingTwice", since("1.24")},
+                {"EndMethodMissingInInheritedConsumerExpression", since("1.24")},
+                {"ExternalGenericEndMethodMissing", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "sourceFiles")
+    public void repeatedCompilationShouldReportSameErrors(String className, Version since) throws URISyntaxException {
+        List<Diagnostic<? extends JavaFileObject>> first = compile(new File(getClass().getResource(className + ".java").toURI()), null, null);
+        List<Diagnostic<? extends JavaFileObject>> second = compile(new File(getClass().getResource(className + ".java").toURI()), null, null);
+        Assert.assertFalse(errors(first).isEmpty(), first.toString());
+        Assert.assertEquals(errors(second), errors(first));
+        Assert.assertTrue(sharedTables(second) > 0, second.toString());
+    }
+
+    @DataProvider
+    public static Object[][] libraryChanges() {
+        return new Object[][]{
+                {"end", "finish", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "libraryChanges")
+    public void changedClassPathEntryShouldNotReuseTables(String oldEndMethod, String newEndMethod, Version since) throws IOException {
+        Path directory = Files.createDirectories(Paths.get("target", "shared-tables"));
+        Path library = Files.createDirectories(directory.resolve("library"));
+        Path user = write(directory.resolve("User.java"), "public class User {\n    void method(Library library) {\n        library.next();\n    }\n}\n");
+        compileLibrary(directory, library, oldEndMethod);
+        Assert.assertTrue(errors(compile(user.toFile(), library, null)).get(0).contains(oldEndMethod + "()"));
+        compileLibrary(directory, library, newEndMethod);
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(user.toFile(), library, null);
+        Assert.assertTrue(errors(diagnostics).get(0).contains(newEndMethod + "()"), diagnostics.toString());
+    }
+
+    @DataProvider
+    public static Object[][] endMethods() {
+        return new Object[][]{
+                {"close", since("1.24")}
+        };
+    }
+
+    /**
+     * Build tools load the processor by new class loader for every compilation, so the tables must be shared without
+     * any class of the processor.
+     */
+    @Test(dataProvider = "endMethods")
+    public void compilationsInIsolatedClassLoadersShouldShareTables(String endMethod, Version since) throws IOException {
+        Path directory = Files.createDirectories(Paths.get("target", "shared-tables-loaders"));
+        Path library = Files.createDirectories(directory.resolve("library"));
+        Path user = write(directory.resolve("User.java"), "public class User {\n    void method(Library library) {\n        library.next();\n    }\n}\n");
+        compileLibrary(directory, library, endMethod);
+        URL processorPath = EndProcessor.class.getProtectionDomain().getCodeSource().getLocation();
+        try(URLClassLoader first = new URLClassLoader(new URL[]{processorPath}, ClassLoader.getSystemClassLoader().getParent());
+            URLClassLoader second = new URLClassLoader(new URL[]{processorPath}, ClassLoader.getSystemClassLoader().getParent())) {
+            List<Diagnostic<? extends JavaFileObject>> firstDiagnostics = compile(user.toFile(), library, first);
+            List<Diagnostic<? extends JavaFileObject>> secondDiagnostics = compile(user.toFile(), library, second);
+            Assert.assertEquals(sharedTables(firstDiagnostics), 0L, firstDiagnostics.toString());
+            Assert.assertTrue(sharedTables(secondDiagnostics) > 0, secondDiagnostics.toString());
+            Assert.assertEquals(errors(secondDiagnostics), errors(firstDiagnostics));
+            Assert.assertTrue(errors(secondDiagnostics).get(0).contains(endMethod + "()"), secondDiagnostics.toString());
+        }
+    }
+
+    private void compileLibrary(Path directory, Path library, String endMethod) throws IOException {
+        Path source = write(directory.resolve("Library.java"), "public interface Library {\n    Library next();\n    @fluent.api.End\n    void " + endMethod + "();\n}\n");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Assert.assertTrue(compiler.getTask(new StringWriter(), fileManager, null, asList("-proc:none", "-d", library.toString()), null, fileManager.getJavaFileObjects(source.toFile())).call());
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        return Files.write(file, content.getBytes(UTF_8));
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(File file, Path classPath, ClassLoader processorLoader) {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        List<String> options = new ArrayList<>(asList("-Afluent.api.stats=true", "-Afluent.api.sharedTables=true", "-d", "target"));
+        if(classPath != null) {
+            options.addAll(asList("-classpath", classPath + File.pathSeparator + System.getProperty("java.class.path")));
+        }
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, listener, options, null, fileManager.getJavaFileObjects(file));
+        if(processorLoader != null) {
+            try {
+                task.setProcessors(singletonList((Processor) processorLoader.loadClass(EndProcessor.class.getName()).getConstructor().newInstance()));
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError(e);
+            }
+        }
+        task.call();
+        return listener.getDiagnostics();
+    }
+
+    private static List<String> errors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        return diagnostics.stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).map(Object::toString).collect(toList());
+    }
+
+    private static long sharedTables(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        Matcher matcher = SHARED_TABLES.matcher(diagnostics.toString());
+        Assert.assertTrue(matcher.find(), diagnostics.toString());
+        return Long.parseLong(matcher.group(1));
+    }
+
+}
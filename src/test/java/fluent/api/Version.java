@@ -31,9 +31,10 @@ package fluent.api;
 
 import java.util.Objects;
 
+import static java.lang.Integer.parseInt;
 import static java.util.Objects.requireNonNull;
 
-public final class Version {
+public final class Version implements Comparable<Version> {
 
     private final String version;
 
@@ -56,6 +57,23 @@ public final class Version {
         return Objects.hash(version);
     }
 
+    public boolean isSnapshot() {
+        return version.endsWith("-SNAPSHOT");
+    }
+
+    @Override
+    public int compareTo(Version other) {
+        String[] these = version.replace("-SNAPSHOT", "").split("\\.");
+        String[] those = other.version.replace("-SNAPSHOT", "").split("\\.");
+        for(int i = 0; i < Math.max(these.length, those.length); i++) {
+            int result = Integer.compare(i < these.length ? parseInt(these[i]) : 0, i < those.length ? parseInt(those[i]) : 0);
+            if(result != 0) {
+                return result;
+            }
+        }
+        return Boolean.compare(other.isSnapshot(), isSnapshot());
+    }
+
     public static Version since(String version) {
         return new Version(version);
     }
@@ -0,0 +1,120 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.Trees;
+import fluent.api.CorpusGenerator;
+import fluent.api.Version;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static fluent.api.CorpusGenerator.Statement.CHAIN;
+import static fluent.api.Version.since;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+/**
+ * Check, that extremely long method chains (e.g. produced by generators of builders) don't need stack frame per
+ * chain link. Javac itself recurses when attributing such chains, so the sources are compiled with a big stack, and
+ * only the end method check runs with a small one.
+ */
+public class LongChainTest {
+
+    private static final int CHAIN_LENGTH = 10_000;
+    private static final long COMPILER_STACK = 1L << 30;
+    private static final long SCANNER_STACK = 256L << 10;
+
+    @DataProvider
+    public static Object[][] chains() {
+        return new Object[][]{
+                {new CorpusGenerator().statements(CHAIN).statementsPerFile(2), "LongChainWithEndMethod", since("1.24")},
+                {new CorpusGenerator().statements(CHAIN).statementsPerFile(2).missingEndEvery(2), "LongChainWithoutEndMethod", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "chains")
+    public void longChainShouldBeCheckedWithSmallStack(CorpusGenerator corpus, String name, Version since) throws Throwable {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavacTask task = (JavacTask) compiler.getTask(new StringWriter(), null, listener, asList("-proc:none", "-Xlint:none"), null, corpus.chainLength(CHAIN_LENGTH).generate());
+        List<TaskEvent> events = new ArrayList<>();
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void started(TaskEvent taskEvent) { }
+
+            @Override
+            public void finished(TaskEvent taskEvent) {
+                if(taskEvent.getKind() == ANALYZE) {
+                    events.add(taskEvent);
+                }
+            }
+        });
+        run(COMPILER_STACK, task::analyze);
+        Statistics statistics = new Statistics();
+        DslScanner scanner = new DslScanner(() -> new AnnotationUtils(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), emptyList(), null, task.getTypes(), task.getElements(), statistics), null, null, null, Trees.instance(task), task.getTypes(), task.getElements(), statistics, 0);
+        run(SCANNER_STACK, () -> events.forEach(scanner::finished));
+        Assert.assertEquals(statistics.violations, corpus.violations());
+        Assert.assertEquals(listener.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == ERROR).count(), corpus.violations(), listener.getDiagnostics().toString());
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static void run(long stackSize, Action action) throws Throwable {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                action.run();
+            } catch (Throwable throwable) {
+                failure.set(throwable);
+            }
+        }, "stack-" + stackSize, stackSize);
+        thread.start();
+        thread.join();
+        if(failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+}
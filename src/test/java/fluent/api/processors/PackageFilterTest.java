@@ -0,0 +1,106 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import fluent.api.Version;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static fluent.api.Version.since;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+public class PackageFilterTest {
+
+    @DataProvider
+    public static Object[][] packages() {
+        return new Object[][]{
+                {"com.acme.dsl.**", "com.acme.dsl", "", true, since("1.24")},
+                {"com.acme.dsl.**", "com.acme.dsl.orders.v2", "", true, since("1.24")},
+                {"com.acme.dsl.**", "com.acme.dslx", "", false, since("1.24")},
+                {"com.acme.dsl.**", "com.acme", "", false, since("1.24")},
+                {"com.acme.*", "com.acme.orders", "", true, since("1.24")},
+                {"com.acme.*", "com.acme", "", false, since("1.24")},
+                {"com.acme.*", "com.acme.orders.v2", "", false, since("1.24")},
+                {"com.*.dsl", "com.acme.dsl", "", true, since("1.24")},
+                {"com.acme", "com.acme", "", true, since("1.24")},
+                {"com.acme,org.acme.**", "org.acme.dsl", "", true, since("1.24")},
+                {"", "", "", true, since("1.24")},
+                {"", "com.acme.legacy.orders", "com.acme.legacy.**", false, since("1.24")},
+                {"", "com.acme.orders", "com.acme.legacy.**", true, since("1.24")},
+                {"com.acme.**", "com.acme.legacy", "com.acme.legacy.**", false, since("1.24")},
+                {"com.acme.**", "com.acme.orders", "com.acme.legacy.**", true, since("1.24")},
+                {"**", "", "com.**", true, since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "packages")
+    public void packageShouldBeAccepted(String include, String packageName, String exclude, boolean expected, Version since) {
+        Assert.assertEquals(new PackageFilter(patterns(include), patterns(exclude)).accepts(packageName), expected);
+    }
+
+    @DataProvider
+    public static Object[][] patterns() {
+        return new Object[][]{
+                {"com.acme.**", true, since("1.24")},
+                {"**", true, since("1.24")},
+                {"com.*.dsl", true, since("1.24")},
+                {"**.internal", false, since("1.24")},
+                {"com.**.dsl", false, since("1.24")},
+                {"com.**.**", false, since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "patterns")
+    public void patternShouldBeValidated(String pattern, boolean valid, Version since) {
+        Assert.assertEquals(PackageFilter.isValid(pattern), valid);
+    }
+
+    @DataProvider
+    public static Object[][] invalidPatterns() {
+        return new Object[][]{
+                {"", "**.internal", since("1.24")},
+                {"com.**.dsl", "", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "invalidPatterns", expectedExceptions = IllegalArgumentException.class)
+    public void invalidPatternShouldBeRejected(String include, String exclude, Version since) {
+        new PackageFilter(patterns(include), patterns(exclude));
+    }
+
+    private static List<String> patterns(String patterns) {
+        return patterns.isEmpty() ? emptyList() : asList(patterns.split(","));
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.Trees;
+import fluent.api.CorpusGenerator;
+import fluent.api.Version;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static fluent.api.CorpusGenerator.Statement.*;
+import static fluent.api.Version.since;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+/**
+ * Check, that the end method check visits every tree node at most once - there is no second descent into checked
+ * expressions. Visited nodes are recorded by identity, so a node visited twice is found, even if the scan skips enough
+ * other nodes to keep the total count low.
+ */
+public class SinglePassTest {
+
+    @DataProvider
+    public static Object[][] corpora() {
+        return new Object[][]{
+                {new CorpusGenerator().statements(CHAIN, START).chainLength(20), "GeneratedCorpusWithChains", since("1.24")},
+                {new CorpusGenerator().statements(LAMBDA, REFERENCE).lambdaDepth(5), "GeneratedCorpusWithNestedLambdas", since("1.24")},
+                {new CorpusGenerator().statements(PLAIN), "GeneratedCorpusWithoutDsl", since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "corpora")
+    public void everyNodeShouldBeVisitedAtMostOnce(CorpusGenerator corpus, String name, Version since) throws IOException {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavacTask task = (JavacTask) compiler.getTask(new StringWriter(), null, listener, asList("-proc:none", "-Xlint:none"), null, corpus.generate());
+        List<TaskEvent> events = new ArrayList<>();
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void started(TaskEvent taskEvent) { }
+
+            @Override
+            public void finished(TaskEvent taskEvent) {
+                if(taskEvent.getKind() == ANALYZE) {
+                    events.add(taskEvent);
+                }
+            }
+        });
+        task.analyze();
+        Statistics statistics = new Statistics();
+        Map<Tree, Integer> visits = new IdentityHashMap<>();
+        DslScanner scanner = new DslScanner(() -> new AnnotationUtils(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), emptyList(), null, task.getTypes(), task.getElements(), statistics), null, null, null, Trees.instance(task), task.getTypes(), task.getElements(), statistics, 0) {
+            @Override
+            void visited(Tree tree) {
+                super.visited(tree);
+                visits.merge(tree, 1, Integer::sum);
+            }
+        };
+        events.forEach(scanner::finished);
+        Assert.assertTrue(statistics.statements > 0, name);
+        Assert.assertEquals(visits.values().stream().mapToLong(Integer::longValue).sum(), statistics.nodes);
+        visits.forEach((tree, count) -> Assert.assertEquals((int) count, 1, name + ": " + tree.getKind() + " visited " + count + " times: " + tree));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2018, Ondrej Fischer
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package fluent.api.processors;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.Trees;
+import fluent.api.Version;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.sun.source.util.TaskEvent.Kind.ANALYZE;
+import static fluent.api.Version.since;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+/**
+ * Check, that classes of a compilation unit are not scanned again after the whole unit was scanned, because the first
+ * analyzed class was not found among its declarations, and that time of all classes is reported once per unit.
+ */
+public class UnitScopeTest {
+
+    @DataProvider
+    public static Object[][] units() {
+        return new Object[][]{
+                {"EndMethodMissingInMultipleClasses", 2, since("1.24")},
+                {"EndMethodNotMissingInMultipleClasses", 0, since("1.24")}
+        };
+    }
+
+    @Test(dataProvider = "units")
+    public void unitScannedAsWholeShouldNotBeScannedAgain(String className, int violations, Version since) throws URISyntaxException, IOException {
+        DiagnosticCollector<JavaFileObject> listener = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjects(new File(getClass().getResource("/fluent/api/" + className + ".java").toURI()));
+        JavacTask task = (JavacTask) compiler.getTask(new StringWriter(), fileManager, listener, asList("-proc:none", "-Xlint:none"), null, fileObjects);
+        List<TaskEvent> events = new ArrayList<>();
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void started(TaskEvent taskEvent) { }
+
+            @Override
+            public void finished(TaskEvent taskEvent) {
+                if(taskEvent.getKind() == ANALYZE) {
+                    events.add(taskEvent);
+                }
+            }
+        });
+        task.analyze();
+        Assert.assertEquals(events.size(), 2);
+        Statistics statistics = new Statistics(5);
+        DslScanner scanner = new DslScanner(() -> new AnnotationUtils(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), emptyList(), null, task.getTypes(), task.getElements(), statistics), null, null, null, Trees.instance(task), task.getTypes(), task.getElements(), statistics, 0);
+        scanner.finished(new TaskEvent(ANALYZE, events.get(0).getCompilationUnit(), task.getElements().getTypeElement(Object.class.getName())));
+        events.forEach(scanner::finished);
+        Assert.assertEquals(statistics.violations, violations);
+        Assert.assertEquals(listener.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == ERROR).count(), violations, listener.getDiagnostics().toString());
+        Assert.assertEquals(statistics.compilationUnits, 1);
+        Assert.assertEquals(statistics.slowestUnits().split(className + ".java", -1).length, 2, statistics.slowestUnits());
+    }
+
+}
@@ -0,0 +1,13 @@
+package fluent.api;
+
+import org.testng.annotations.Test;
+
+public class EndMethodCheckFileWithManifest {
+
+	@Test
+	@EndMethodCheckFile(uniqueFileName = "EndMethodCheckFileWithManifest.file", manifest = true)
+	public void testMethod(Dsl dsl) {
+		dsl.add().end();
+	}
+
+}
@@ -0,0 +1,19 @@
+package fluent.api;
+
+import fluent.api.Dsl;
+
+import java.util.function.Consumer;
+
+public class EndMethodMissingInInheritedConsumerExpression {
+
+	interface DslConsumer extends Consumer<Dsl> {}
+
+	public void method(DslConsumer consumer) {
+
+	}
+
+	public void method() {
+		method(dsl -> dsl.add());
+	}
+
+}
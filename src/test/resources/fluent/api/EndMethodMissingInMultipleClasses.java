@@ -0,0 +1,19 @@
+package fluent.api;
+
+import fluent.api.Dsl;
+
+public class EndMethodMissingInMultipleClasses {
+
+	public void method(Dsl dsl) {
+		dsl.add();
+	}
+
+}
+
+class AuxiliaryClassWithEndMethodMissing {
+
+	public void method(Dsl dsl) {
+		dsl.add();
+	}
+
+}
@@ -0,0 +1,20 @@
+package fluent.api;
+
+import fluent.api.Dsl;
+
+public class EndMethodNotMissingInMultipleClasses {
+
+	public void method(Dsl dsl) {
+		dsl.end();
+		dsl.add().end();
+	}
+
+}
+
+class AuxiliaryClassWithEndMethodNotMissing {
+
+	public void method(Dsl dsl) {
+		dsl.add().end();
+	}
+
+}
@@ -0,0 +1,22 @@
+package fluent.api;
+
+import java.util.function.Consumer;
+
+public class EndMethodNotMissingInOverriddenConsumerExpression {
+
+	interface DslSupplier extends Consumer<String> {
+		default void accept(String value) {}
+		Dsl get();
+	}
+
+	private final Dsl dsl = new Dsl();
+
+	public void method(DslSupplier supplier) {
+
+	}
+
+	public void method() {
+		method(() -> dsl.add());
+	}
+
+}
@@ -0,0 +1,10 @@
+package fluent.api;
+
+public class EndMethodWithCustomErrorMissingTwice {
+
+	public void method(DslWithCustomError dsl) {
+		dsl.add();
+		dsl.add().add();
+	}
+
+}
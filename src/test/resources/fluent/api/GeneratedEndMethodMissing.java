@@ -0,0 +1,14 @@
+package fluent.api;
+
+import fluent.api.Dsl;
+
+import javax.annotation.processing.Generated;
+
+@Generated("fluent.api.CorpusGenerator")
+public class GeneratedEndMethodMissing {
+
+	public void method(Dsl dsl) {
+		dsl.add();
+	}
+
+}
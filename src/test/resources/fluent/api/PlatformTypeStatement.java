@@ -0,0 +1,14 @@
+package fluent.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PlatformTypeStatement {
+
+	public void method(List<String> list) {
+		"a".concat("b");
+		new ArrayList<>(list).iterator();
+		list.stream().findFirst();
+	}
+
+}